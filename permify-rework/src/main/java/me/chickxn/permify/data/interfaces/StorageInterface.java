@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -113,6 +114,78 @@ public interface StorageInterface {
      */
     int getNextGroupId();
 
+    // === Query Operations ===
+
+    /**
+     * Gets every stored player that is a member of a group, online or not
+     * The default implementation loads every player, storages should answer from an index
+     * @param groupName the group name, case-insensitive
+     * @return set of member UUIDs
+     */
+    @NotNull
+    default Set<UUID> getGroupMembers(@NotNull String groupName) {
+        Set<UUID> members = new HashSet<>();
+        for (UUID uuid : getAllPlayerUUIDs()) {
+            PlayerInterface player = loadPlayer(uuid);
+            if (player != null && player.getGroups().stream().anyMatch(group -> group.getName().equalsIgnoreCase(groupName))) {
+                members.add(uuid);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Finds a stored player by their last known name, without any profile lookup
+     * The default implementation loads every player, storages should answer from an index
+     * @param name the player name, case-insensitive
+     * @return the player's UUID, or null if no stored player has that name
+     */
+    @Nullable
+    default UUID findPlayerUuid(@NotNull String name) {
+        for (UUID uuid : getAllPlayerUUIDs()) {
+            PlayerInterface player = loadPlayer(uuid);
+            if (player != null && player.getName().equalsIgnoreCase(name)) {
+                return uuid;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets every stored player holding a permission directly or temporarily, not through a group
+     * The default implementation loads every player, storages should answer from an index
+     * @param permission the exact permission node
+     * @return set of player UUIDs
+     */
+    @NotNull
+    default Set<UUID> getPlayersWithPermission(@NotNull String permission) {
+        Set<UUID> holders = new HashSet<>();
+        for (UUID uuid : getAllPlayerUUIDs()) {
+            PlayerInterface player = loadPlayer(uuid);
+            if (player != null && (player.getDirectPermissions().contains(permission)
+                    || player.getTemporaryPermissions().containsKey(permission))) {
+                holders.add(uuid);
+            }
+        }
+        return holders;
+    }
+
+    /**
+     * Gets every group holding a permission directly, not through a parent
+     * @param permission the exact permission node
+     * @return set of group names
+     */
+    @NotNull
+    default Set<String> getGroupsWithPermission(@NotNull String permission) {
+        Set<String> holders = new HashSet<>();
+        for (GroupInterface group : getAllGroups()) {
+            if (group.getPermissions().contains(permission)) {
+                holders.add(group.getName());
+            }
+        }
+        return holders;
+    }
+
     // === Permission Operations ===
 
     /**
@@ -306,6 +379,17 @@ public interface StorageInterface {
                                  @Nullable LocalDateTime lastSeen,
                                  long playtimeSeconds);
 
+    /**
+     * Updates a player's stored name, called on join so renamed players are found by their new name
+     * The default implementation keeps the stored name, storages that index names should override it
+     * @param player the player
+     * @param name the current name
+     * @return true if updated successfully
+     */
+    default boolean updatePlayerName(@NotNull PlayerInterface player, @NotNull String name) {
+        return false;
+    }
+
     // === Bulk Operations ===
 
     /**
@@ -0,0 +1,160 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Global index of expiring entries keyed by owner, fired at their exact deadline.
+ * Backed by a single timer thread whose delay queue is ordered by deadline, so nothing
+ * polls and an expiry only touches the entry's owner. Each component schedules in its own
+ * namespace, so cancelling all entries of a player in one never touches those of another.
+ */
+public final class ExpiryScheduler {
+
+    private static final Logger logger = Logger.getLogger("Permify-Expiry");
+
+    // Created on first use and again after a shutdown, so a plugin reload gets a fresh thread
+    private static ScheduledThreadPoolExecutor timer;
+    private static final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private ExpiryScheduler() {
+    }
+
+    /**
+     * Schedules an action for an entry, replacing any earlier schedule for the same entry
+     * @param namespace the component scheduling the entry, such as "storage"
+     * @param owner the player the entry belongs to
+     * @param entry an identifier unique per owner, such as "permission:fly.use"
+     * @param deadlineMillis the epoch millis at which the entry expires
+     * @param action what to run at the deadline, on the expiry thread
+     */
+    public static void schedule(@NotNull String namespace, @NotNull UUID owner, @NotNull String entry, long deadlineMillis,
+                                @NotNull Runnable action) {
+        Key key = new Key(namespace, owner, entry);
+        long delay = Math.max(0L, deadlineMillis - System.currentTimeMillis());
+
+        // Publish the entry before submitting the task, a deadline already in the past may fire right away
+        Entry scheduled = new Entry();
+        Entry previous = entries.put(key, scheduled);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        scheduled.setFuture(timer().schedule(() -> {
+            // Only fire if this exact schedule is still current, not one that replaced or cancelled it
+            if (!entries.remove(key, scheduled)) {
+                return;
+            }
+            try {
+                action.run();
+            } catch (Exception e) {
+                logger.warning("Error expiring " + entry + " of " + owner + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, delay, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Cancels the schedule of an entry
+     */
+    public static void cancel(@NotNull String namespace, @NotNull UUID owner, @NotNull String entry) {
+        Entry removed = entries.remove(new Key(namespace, owner, entry));
+        if (removed != null) {
+            removed.cancel();
+        }
+    }
+
+    /**
+     * Cancels every schedule of an owner within a namespace
+     */
+    public static void cancelAll(@NotNull String namespace, @NotNull UUID owner) {
+        entries.entrySet().removeIf(mapping -> {
+            Key key = mapping.getKey();
+            if (!key.owner.equals(owner) || !key.namespace.equals(namespace)) {
+                return false;
+            }
+            mapping.getValue().cancel();
+            return true;
+        });
+    }
+
+    /**
+     * Cancels every schedule and stops the timer thread, called when the plugin is disabled
+     */
+    public static synchronized void shutdown() {
+        entries.values().forEach(Entry::cancel);
+        entries.clear();
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * Gets the number of scheduled entries
+     */
+    public static int size() {
+        return entries.size();
+    }
+
+    /**
+     * Converts a stored expiry time to epoch millis
+     */
+    public static long toEpochMillis(@NotNull LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @NotNull
+    private static synchronized ScheduledThreadPoolExecutor timer() {
+        if (timer == null) {
+            timer = createTimer();
+        }
+        return timer;
+    }
+
+    @NotNull
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Permify-Expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private record Key(@NotNull String namespace, @NotNull UUID owner, @NotNull String entry) {
+    }
+
+    /**
+     * One schedule, matched by identity; the future is attached after the entry is published
+     */
+    private static final class Entry {
+
+        private ScheduledFuture<?> future;
+        private boolean cancelled;
+
+        private synchronized void setFuture(@NotNull ScheduledFuture<?> future) {
+            this.future = future;
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary that interns permission nodes into dense int IDs.
+ * Raw nodes are interned as written, so "a.b" and "-a.b" get separate IDs; the
+ * opposite form of an ID can be resolved with {@link #opposite(int)}.
+ *
+ * IDs are never released, which keeps them stable for the lifetime of the server. The dictionary
+ * therefore only grows: it holds every distinct node seen since startup, including nodes that were
+ * removed from every player and group again. That is bounded by the nodes ever configured, a few bytes
+ * of bitset per ID and one string each, and is reset by a restart.
+ */
+public final class PermissionDictionary {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int UNKNOWN = -1;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Guarded by the class lock for writes, published through the volatile array reference
+    private static volatile String[] nodes = new String[INITIAL_CAPACITY];
+    private static volatile int[] opposites = newOpposites(INITIAL_CAPACITY, 0);
+    // Written under the class lock, volatile so readers such as every set builder never take it
+    private static volatile int size;
+
+    private PermissionDictionary() {
+    }
+
+    // ===================================================================================================
+    // LOOKUP
+    // ===================================================================================================
+
+    /**
+     * Gets the ID of a node, registering it if it is not known yet
+     * @param node the raw permission node
+     * @return the dense ID of the node
+     */
+    public static int id(@NotNull String node) {
+        Integer id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        return register(node);
+    }
+
+    /**
+     * Gets the ID of a node without registering it
+     * @param node the raw permission node
+     * @return the ID, or -1 if the node has never been registered
+     */
+    public static int lookup(@Nullable String node) {
+        if (node == null) {
+            return UNKNOWN;
+        }
+        Integer id = ids.get(node);
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * Gets the node registered for an ID
+     * @param id the ID
+     * @return the raw permission node
+     */
+    @NotNull
+    public static String node(int id) {
+        String node = id >= 0 && id < nodes.length ? nodes[id] : null;
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown permission id: " + id);
+        }
+        return node;
+    }
+
+    /**
+     * Checks if an ID belongs to a negated ("-") node
+     */
+    public static boolean isNegated(int id) {
+        return node(id).startsWith("-");
+    }
+
+    /**
+     * Gets the ID of the opposite form of a node ("a.b" for "-a.b" and vice versa),
+     * registering it on first use
+     * @param id the ID
+     * @return the ID of the opposite form
+     */
+    public static int opposite(int id) {
+        int[] table = opposites;
+        if (id < table.length && table[id] != UNKNOWN) {
+            return table[id];
+        }
+
+        String node = node(id);
+        int opposite = id(node.startsWith("-") ? node.substring(1) : "-" + node);
+        link(id, opposite);
+        return opposite;
+    }
+
+    /**
+     * Gets the number of registered nodes
+     */
+    public static int size() {
+        return size;
+    }
+
+    // ===================================================================================================
+    // REGISTRATION
+    // ===================================================================================================
+
+    private static synchronized int register(@NotNull String node) {
+        Integer existing = ids.get(node);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = size;
+        if (id == nodes.length) {
+            int capacity = nodes.length * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            opposites = newOpposites(capacity, id);
+        }
+
+        nodes[id] = node;
+        size = id + 1;
+
+        // Publishing through the map makes the array write visible to any thread that finds the ID
+        ids.put(node, id);
+        return id;
+    }
+
+    private static synchronized void link(int id, int opposite) {
+        int[] table = opposites;
+        table[id] = opposite;
+        table[opposite] = id;
+        opposites = table;
+    }
+
+    private static int[] newOpposites(int capacity, int copy) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, UNKNOWN);
+        if (copy > 0) {
+            System.arraycopy(opposites, 0, table, 0, copy);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,67 @@
+package me.chickxn.permify.data.permission;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Describes a committed change that makes derived permission snapshots stale
+ * Published by storage modules through {@link PermissionInvalidationBus}
+ */
+@Getter
+public final class PermissionInvalidation {
+
+    /**
+     * What the change affects
+     */
+    public enum Scope {
+        /** The permissions or groups of a single player */
+        PLAYER,
+        /** A group's permissions or parents; affects its members and every descendant group's members */
+        GROUP,
+        /** Anything, every snapshot must be rebuilt */
+        ALL
+    }
+
+    @NotNull
+    private final Scope scope;
+    @Nullable
+    private final UUID playerId;
+    @Nullable
+    private final String groupName;
+    @NotNull
+    private final String reason;
+
+    private PermissionInvalidation(@NotNull Scope scope, @Nullable UUID playerId, @Nullable String groupName, @NotNull String reason) {
+        this.scope = scope;
+        this.playerId = playerId;
+        this.groupName = groupName;
+        this.reason = reason;
+    }
+
+    @NotNull
+    public static PermissionInvalidation player(@NotNull UUID playerId, @NotNull String reason) {
+        return new PermissionInvalidation(Scope.PLAYER, playerId, null, reason);
+    }
+
+    @NotNull
+    public static PermissionInvalidation group(@NotNull String groupName, @NotNull String reason) {
+        return new PermissionInvalidation(Scope.GROUP, null, groupName.toLowerCase(Locale.ROOT), reason);
+    }
+
+    @NotNull
+    public static PermissionInvalidation all(@NotNull String reason) {
+        return new PermissionInvalidation(Scope.ALL, null, null, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionInvalidation{scope=" + scope
+                + (playerId != null ? ", player=" + playerId : "")
+                + (groupName != null ? ", group=" + groupName : "")
+                + ", reason=" + reason + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide bus that storage modules publish permission changes to
+ * Subscribers (the permission handler) use it to invalidate exactly the affected snapshots
+ */
+public final class PermissionInvalidationBus {
+
+    private static final Logger logger = Logger.getLogger("Permify-InvalidationBus");
+    private static final List<Consumer<PermissionInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    private PermissionInvalidationBus() {
+    }
+
+    /**
+     * Registers a listener for invalidations
+     */
+    public static void subscribe(@NotNull Consumer<PermissionInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener
+     */
+    public static void unsubscribe(@NotNull Consumer<PermissionInvalidation> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes an invalidation to every listener on the calling thread
+     * Listeners must not block, a failing listener does not affect the others
+     */
+    public static void publish(@NotNull PermissionInvalidation invalidation) {
+        for (Consumer<PermissionInvalidation> listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (Exception e) {
+                logger.warning("Error handling " + invalidation + ": " + e.getMessage());
+            }
+        }
+    }
+}
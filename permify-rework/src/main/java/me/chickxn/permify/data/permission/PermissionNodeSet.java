@@ -0,0 +1,189 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Thread-safe mutable set of permission nodes backed by a sorted array of {@link PermissionDictionary} IDs.
+ * Writes copy the array, reads and iteration work on the current snapshot without locking,
+ * which suits permission sets that are read far more often than they change.
+ */
+public final class PermissionNodeSet extends AbstractSet<String> {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private volatile int[] ids = NO_IDS;
+
+    public PermissionNodeSet() {
+    }
+
+    public PermissionNodeSet(@NotNull Collection<String> nodes) {
+        addAll(nodes);
+    }
+
+    // ===================================================================================================
+    // QUERIES
+    // ===================================================================================================
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String node)) {
+            return false;
+        }
+        int id = PermissionDictionary.lookup(node);
+        return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /**
+     * Gets a snapshot of the contained IDs in ascending order; the array must not be modified
+     */
+    @NotNull
+    int[] ids() {
+        return ids;
+    }
+
+    /**
+     * Gets an immutable copy of this set
+     */
+    @NotNull
+    public PermissionSet snapshot() {
+        int[] current = ids;
+        if (current.length == 0) {
+            return PermissionSet.EMPTY;
+        }
+        PermissionSet.Builder builder = new PermissionSet.Builder();
+        for (int id : current) {
+            builder.addId(id);
+        }
+        return builder.build();
+    }
+
+    @Override
+    @NotNull
+    public Iterator<String> iterator() {
+        int[] snapshot = ids;
+        return new Iterator<>() {
+            private int index;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return index < snapshot.length;
+            }
+
+            @Override
+            public String next() {
+                if (index >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot[index++];
+                return PermissionDictionary.node(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                removeId(last);
+                last = -1;
+            }
+        };
+    }
+
+    // ===================================================================================================
+    // MODIFICATION
+    // ===================================================================================================
+
+    @Override
+    public boolean add(@NotNull String node) {
+        return addId(PermissionDictionary.id(node));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String node)) {
+            return false;
+        }
+        int id = PermissionDictionary.lookup(node);
+        return id >= 0 && removeId(id);
+    }
+
+    @Override
+    public synchronized boolean addAll(@NotNull Collection<? extends String> nodes) {
+        if (nodes.isEmpty()) {
+            return false;
+        }
+
+        int[] current = ids;
+        int[] merged = Arrays.copyOf(current, current.length + nodes.size());
+        int count = current.length;
+        for (String node : nodes) {
+            merged[count++] = PermissionDictionary.id(node);
+        }
+
+        Arrays.sort(merged, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || merged[unique - 1] != merged[i]) {
+                merged[unique++] = merged[i];
+            }
+        }
+
+        if (unique == current.length) {
+            return false;
+        }
+        ids = Arrays.copyOf(merged, unique);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        ids = NO_IDS;
+    }
+
+    private synchronized boolean addId(int id) {
+        int[] current = ids;
+        int index = Arrays.binarySearch(current, id);
+        if (index >= 0) {
+            return false;
+        }
+
+        int insert = -index - 1;
+        int[] updated = new int[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insert);
+        updated[insert] = id;
+        System.arraycopy(current, insert, updated, insert + 1, current.length - insert);
+        ids = updated;
+        return true;
+    }
+
+    private synchronized boolean removeId(int id) {
+        int[] current = ids;
+        int index = Arrays.binarySearch(current, id);
+        if (index < 0) {
+            return false;
+        }
+
+        int[] updated = new int[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        ids = updated;
+        return true;
+    }
+}
@@ -0,0 +1,249 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of permission nodes stored as a bitset over {@link PermissionDictionary} IDs.
+ * Implements {@code Set<String>} so it can be handed out directly instead of copying into a HashSet.
+ */
+public final class PermissionSet extends AbstractSet<String> {
+
+    public static final PermissionSet EMPTY = new PermissionSet(new long[0], 0);
+
+    private final long[] words;
+    private final int size;
+    private final int hash;
+    private int setHash;
+
+    private PermissionSet(@NotNull long[] words, int size) {
+        this.words = words;
+        this.size = size;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    /**
+     * Creates a set from raw permission nodes
+     * @param permissions the nodes to add
+     * @return the set, or the shared empty set
+     */
+    @NotNull
+    public static PermissionSet copyOf(@NotNull Collection<String> permissions) {
+        if (permissions instanceof PermissionSet set) {
+            return set;
+        }
+        return new Builder().addAll(permissions).build();
+    }
+
+    // ===================================================================================================
+    // QUERIES
+    // ===================================================================================================
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String node && containsId(PermissionDictionary.lookup(node));
+    }
+
+    /**
+     * Checks if the set contains a dictionary ID
+     */
+    public boolean containsId(int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the dictionary IDs contained in this set, in ascending order
+     */
+    @NotNull
+    public int[] ids() {
+        int[] ids = new int[size];
+        int index = 0;
+        for (int id = nextId(0); id >= 0; id = nextId(id + 1)) {
+            ids[index++] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the next contained ID at or after the given one
+     * @return the ID, or -1 if there is none
+     */
+    public int nextId(int from) {
+        int word = from >>> 6;
+        if (from < 0 || word >= words.length) {
+            return -1;
+        }
+
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    @Override
+    @NotNull
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int next = nextId(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                String node = PermissionDictionary.node(next);
+                next = nextId(next + 1);
+                return node;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PermissionSet other) {
+            return size == other.size && hash == other.hash && Arrays.equals(words, other.words);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // Must stay consistent with Set.hashCode() for mixed comparisons, so cache it once computed
+        int h = setHash;
+        if (h == 0 && size > 0) {
+            h = super.hashCode();
+            setHash = h;
+        }
+        return h;
+    }
+
+    // ===================================================================================================
+    // BUILDER
+    // ===================================================================================================
+
+    /**
+     * Mutable bitset builder for {@link PermissionSet}
+     */
+    public static final class Builder {
+
+        private long[] words = new long[Math.max(1, (PermissionDictionary.size() + 63) >>> 6)];
+
+        @NotNull
+        public Builder add(@NotNull String node) {
+            return addId(PermissionDictionary.id(node));
+        }
+
+        @NotNull
+        public Builder addId(int id) {
+            int word = id >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+            }
+            words[word] |= 1L << id;
+            return this;
+        }
+
+        @NotNull
+        public Builder addAll(@NotNull Collection<String> nodes) {
+            if (nodes instanceof PermissionSet set) {
+                long[] other = set.words;
+                if (other.length > words.length) {
+                    words = Arrays.copyOf(words, other.length);
+                }
+                for (int i = 0; i < other.length; i++) {
+                    words[i] |= other[i];
+                }
+            } else if (nodes instanceof PermissionNodeSet set) {
+                for (int id : set.ids()) {
+                    addId(id);
+                }
+            } else {
+                for (String node : nodes) {
+                    add(node);
+                }
+            }
+            return this;
+        }
+
+        @NotNull
+        public Builder removeId(int id) {
+            int word = id >>> 6;
+            if (id >= 0 && word < words.length) {
+                words[word] &= ~(1L << id);
+            }
+            return this;
+        }
+
+        public boolean containsId(int id) {
+            int word = id >>> 6;
+            return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+        }
+
+        /**
+         * Removes every positive node that is also present in negated form.
+         * The negated nodes themselves are kept so they can be applied as false.
+         */
+        @NotNull
+        public Builder resolveNegations() {
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (PermissionDictionary.isNegated(id)) {
+                        removeId(PermissionDictionary.opposite(id));
+                    }
+                }
+            }
+            return this;
+        }
+
+        @NotNull
+        public PermissionSet build() {
+            int length = words.length;
+            while (length > 0 && words[length - 1] == 0) {
+                length--;
+            }
+            if (length == 0) {
+                return EMPTY;
+            }
+
+            long[] trimmed = Arrays.copyOf(words, length);
+            int size = 0;
+            for (long word : trimmed) {
+                size += Long.bitCount(word);
+            }
+            return new PermissionSet(trimmed, size);
+        }
+    }
+}
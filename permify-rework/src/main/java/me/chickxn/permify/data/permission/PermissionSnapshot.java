@@ -0,0 +1,152 @@
+package me.chickxn.permify.data.permission;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable, versioned view of effective permissions, used for players and for group inheritance closures.
+ * A snapshot is built once when its inputs change and then shared by every reader without copying.
+ *
+ * A snapshot may be layered: a shared base trie (see {@link PermissionTableCache}) plus a small
+ * per-player overlay trie, resolved together exactly as if both had been compiled into one.
+ */
+@Getter
+public final class PermissionSnapshot {
+
+    public static final PermissionSnapshot EMPTY = new PermissionSnapshot(0L, PermissionSet.EMPTY);
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private final long version;
+    @NotNull
+    private final PermissionSet permissions;
+    @NotNull
+    private final PermissionTrie trie;
+    @NotNull
+    private final PermissionTrie overlay;
+    private final long createdAt;
+    private final boolean valid;
+    // Epoch millis at which a temporary entry in this snapshot lapses, NEVER if none
+    private final long expiresAt;
+
+    /**
+     * Creates a snapshot and compiles its permissions for lookups
+     * @param version the version, higher values replace lower ones
+     * @param permissions the effective permissions
+     */
+    public PermissionSnapshot(long version, @NotNull PermissionSet permissions) {
+        this(version, permissions, PermissionTrie.compile(permissions), PermissionTrie.EMPTY, true, NEVER);
+    }
+
+    private PermissionSnapshot(long version, @NotNull PermissionSet permissions, @NotNull PermissionTrie trie,
+                               @NotNull PermissionTrie overlay, boolean valid, long expiresAt) {
+        this.version = version;
+        this.permissions = permissions;
+        this.trie = trie;
+        this.overlay = overlay;
+        this.createdAt = System.currentTimeMillis();
+        this.valid = valid;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Creates a marker that supersedes every snapshot with a lower version and forces a rebuild
+     * @param version the version of the invalidation
+     * @return an empty, invalid snapshot
+     */
+    @NotNull
+    public static PermissionSnapshot invalidated(long version) {
+        return new PermissionSnapshot(version, PermissionSet.EMPTY, PermissionTrie.EMPTY, PermissionTrie.EMPTY, false, NEVER);
+    }
+
+    /**
+     * Creates a snapshot that shares the set and trie of a base table and layers extra nodes on top
+     * @param version the version of the new snapshot
+     * @param base the shared table, usually resolved from the player's groups
+     * @param overlay per-player nodes such as direct, temporary and context permissions
+     * @return a snapshot sharing the base when the overlay is empty
+     */
+    @NotNull
+    public static PermissionSnapshot layered(long version, @NotNull PermissionSnapshot base, @NotNull PermissionSet overlay) {
+        return layered(version, base, overlay, NEVER);
+    }
+
+    /**
+     * Creates a layered snapshot that contains temporary entries
+     * @param expiresAt epoch millis of the earliest expiry among them, after which the snapshot must be rebuilt
+     */
+    @NotNull
+    public static PermissionSnapshot layered(long version, @NotNull PermissionSnapshot base, @NotNull PermissionSet overlay, long expiresAt) {
+        if (overlay.isEmpty()) {
+            return new PermissionSnapshot(version, base.permissions, base.trie, base.overlay, true, expiresAt);
+        }
+
+        PermissionSet.Builder combined = new PermissionSet.Builder()
+                .addAll(base.permissions)
+                .addAll(overlay)
+                .resolveNegations();
+        return new PermissionSnapshot(version, combined.build(), base.trie, PermissionTrie.compile(overlay), true, expiresAt);
+    }
+
+    /**
+     * Picks the newer of two snapshots, used to publish without losing a concurrent update
+     */
+    @NotNull
+    public static PermissionSnapshot newest(@NotNull PermissionSnapshot current, @NotNull PermissionSnapshot candidate) {
+        return candidate.version > current.version ? candidate : current;
+    }
+
+    /**
+     * Resolves a permission against this snapshot
+     */
+    @NotNull
+    public PermissionTrie.Result check(@NotNull String permission) {
+        PermissionTrie.Result result = trie.check(permission);
+        if (overlay.isEmpty() || result == PermissionTrie.Result.FALSE) {
+            return result;
+        }
+
+        // A deny in either layer wins, otherwise a grant in either layer
+        PermissionTrie.Result overlayResult = overlay.check(permission);
+        if (overlayResult == PermissionTrie.Result.UNDEFINED) {
+            return result;
+        }
+        return overlayResult;
+    }
+
+    public boolean hasPermission(@NotNull String permission) {
+        return check(permission) == PermissionTrie.Result.TRUE;
+    }
+
+    /**
+     * Checks if any node of this snapshot covers a permission (granted or denied)
+     */
+    public boolean isPermissionSet(@NotNull String permission) {
+        return check(permission) != PermissionTrie.Result.UNDEFINED;
+    }
+
+    /**
+     * Checks if this snapshot shares its base table with another one
+     */
+    public boolean sharesTableWith(@NotNull PermissionSnapshot other) {
+        return trie == other.trie;
+    }
+
+    /**
+     * Checks if this snapshot holds temporary entries that will lapse
+     */
+    public boolean hasExpiry() {
+        return expiresAt != NEVER;
+    }
+
+    /**
+     * Gets the age of this snapshot in milliseconds
+     */
+    public long getAge() {
+        return System.currentTimeMillis() - createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionSnapshot{version=" + version + ", permissions=" + permissions.size() + ", valid=" + valid + "}";
+    }
+}
@@ -0,0 +1,94 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash-consing cache of resolved permission tables keyed by their inputs.
+ * Players whose groups resolve to the same closures share one immutable table (set and trie),
+ * so the table is built once per distinct group combination instead of once per player.
+ *
+ * Keys are the group closures themselves, so any change to a group produces a new key and
+ * stale tables simply stop being used until {@link #retainAll(Collection)} drops them.
+ */
+public final class PermissionTableCache {
+
+    private final Map<Set<PermissionSet>, PermissionSnapshot> tables = new ConcurrentHashMap<>();
+    private final AtomicLong tableVersions = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Gets the shared table for a combination of group permission closures
+     * @param groupPermissions the effective permissions of each group
+     * @return the shared table with negations resolved
+     */
+    @NotNull
+    public PermissionSnapshot resolve(@NotNull Collection<? extends Set<String>> groupPermissions) {
+        Set<PermissionSet> key = new HashSet<>();
+        for (Set<String> permissions : groupPermissions) {
+            if (!permissions.isEmpty()) {
+                key.add(PermissionSet.copyOf(permissions));
+            }
+        }
+
+        if (key.isEmpty()) {
+            return PermissionSnapshot.EMPTY;
+        }
+
+        PermissionSnapshot table = tables.get(key);
+        if (table != null) {
+            hits.incrementAndGet();
+            return table;
+        }
+
+        misses.incrementAndGet();
+        PermissionSet.Builder builder = new PermissionSet.Builder();
+        for (PermissionSet permissions : key) {
+            builder.addAll(permissions);
+        }
+
+        PermissionSnapshot built = new PermissionSnapshot(tableVersions.incrementAndGet(), builder.resolveNegations().build());
+        PermissionSnapshot existing = tables.putIfAbsent(Collections.unmodifiableSet(key), built);
+        return existing != null ? existing : built;
+    }
+
+    /**
+     * Drops every table that none of the given snapshots is layered on
+     * @param inUse the snapshots currently held by players
+     */
+    public void retainAll(@NotNull Collection<PermissionSnapshot> inUse) {
+        Set<PermissionTrie> referenced = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PermissionSnapshot snapshot : inUse) {
+            referenced.add(snapshot.getTrie());
+        }
+        tables.values().removeIf(table -> !referenced.contains(table.getTrie()));
+    }
+
+    public void clear() {
+        tables.clear();
+    }
+
+    /**
+     * Gets the number of distinct tables currently shared
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,337 @@
+package me.chickxn.permify.data.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Immutable segment trie compiled from a set of permission nodes.
+ * Holds allow/deny markers for exact nodes and for "node.*" wildcards, so a lookup
+ * walks the permission string once without splitting it or building prefix strings.
+ *
+ * Resolution order matches the one WildcardPermissible has always used:
+ * any negated prefix ("-a", "-a.*", "-a.b") denies, then an exact or wildcard grant allows.
+ */
+public final class PermissionTrie {
+
+    public static final PermissionTrie EMPTY = new Builder().build();
+
+    /** Result of a lookup */
+    public enum Result {
+        TRUE, FALSE, UNDEFINED;
+
+        public boolean asBoolean() {
+            return this == TRUE;
+        }
+    }
+
+    // Node flags
+    private static final byte ALLOW = 1;
+    private static final byte DENY = 1 << 1;
+    private static final byte WILDCARD_ALLOW = 1 << 2;
+    private static final byte WILDCARD_DENY = 1 << 3;
+
+    private final Node root;
+    private final int size;
+
+    private PermissionTrie(@NotNull Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Compiles a trie from raw permission nodes ("a.b", "-a.b", "a.*", "-a.*", "*")
+     * @param permissions the nodes to compile
+     * @return the compiled trie
+     */
+    @NotNull
+    public static PermissionTrie compile(@NotNull Collection<String> permissions) {
+        Builder builder = new Builder();
+        for (String permission : permissions) {
+            builder.add(permission);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Resolves a permission against this trie
+     * @param permission the permission to check
+     * @return TRUE if granted, FALSE if denied, UNDEFINED if no node covers it
+     */
+    @NotNull
+    public Result check(@NotNull String permission) {
+        Node node = root;
+        boolean wildcardAllowed = (root.flags & WILDCARD_ALLOW) != 0;
+        int length = permission.length();
+        int start = 0;
+
+        while (start <= length) {
+            int end = permission.indexOf('.', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            node = node.child(permission, start, end);
+            if (node == null) {
+                break;
+            }
+
+            byte flags = node.flags;
+            if ((flags & (DENY | WILDCARD_DENY)) != 0) {
+                return Result.FALSE;
+            }
+            if ((flags & WILDCARD_ALLOW) != 0) {
+                wildcardAllowed = true;
+            }
+            if (end == length) {
+                if ((flags & ALLOW) != 0) {
+                    return Result.TRUE;
+                }
+                break;
+            }
+            start = end + 1;
+        }
+
+        return wildcardAllowed ? Result.TRUE : Result.UNDEFINED;
+    }
+
+    /**
+     * Checks if a permission is granted
+     * @param permission the permission to check
+     * @return true only if the trie resolves to TRUE
+     */
+    public boolean hasPermission(@NotNull String permission) {
+        return check(permission) == Result.TRUE;
+    }
+
+    /**
+     * Checks if the trie contains any node covering a permission (granted or denied)
+     * @param permission the permission to check
+     * @return true if the lookup is not UNDEFINED
+     */
+    public boolean isPermissionSet(@NotNull String permission) {
+        return check(permission) != Result.UNDEFINED;
+    }
+
+    /**
+     * Checks if this trie grants the universal wildcard
+     * @return true if "*" was compiled into this trie
+     */
+    public boolean hasUniversalWildcard() {
+        return (root.flags & WILDCARD_ALLOW) != 0;
+    }
+
+    /**
+     * Gets the number of nodes compiled into this trie
+     * @return number of raw permission nodes added
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionTrie{nodes=" + size + "}";
+    }
+
+    // ===================================================================================================
+    // NODES
+    // ===================================================================================================
+
+    /**
+     * A trie node with an open-addressed child table keyed by lower-cased segment.
+     * Segments are matched directly against a region of the looked-up string.
+     */
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final String segment;
+        private final int hash;
+        private byte flags;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        private Node(@NotNull String segment, int hash) {
+            this.segment = segment;
+            this.hash = hash;
+        }
+
+        private Node child(@NotNull String permission, int start, int end) {
+            Node[] table = children;
+            if (table.length == 0) {
+                return null;
+            }
+
+            int hash = hash(permission, start, end);
+            int mask = table.length - 1;
+            int segmentLength = end - start;
+
+            for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+                Node candidate = table[i];
+                if (candidate == null) {
+                    return null;
+                }
+                if (candidate.hash == hash
+                        && candidate.segment.length() == segmentLength
+                        && matches(candidate.segment, permission, start)) {
+                    return candidate;
+                }
+            }
+        }
+
+        private Node getOrCreateChild(@NotNull String permission, int start, int end) {
+            Node existing = child(permission, start, end);
+            if (existing != null) {
+                return existing;
+            }
+
+            if ((childCount + 1) * 2 > children.length) {
+                resize();
+            }
+
+            String segment = fold(permission, start, end);
+            Node created = new Node(segment, hash(segment, 0, segment.length()));
+            insert(children, created);
+            childCount++;
+            return created;
+        }
+
+        private void resize() {
+            Node[] table = new Node[Math.max(4, children.length * 2)];
+            for (Node node : children) {
+                if (node != null) {
+                    insert(table, node);
+                }
+            }
+            children = table;
+        }
+
+        private static void insert(@NotNull Node[] table, @NotNull Node node) {
+            int mask = table.length - 1;
+            int i = mix(node.hash) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+        }
+    }
+
+    // Segments are stored, hashed and compared with this one per-char folding, so the three always agree
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    @NotNull
+    private static String fold(@NotNull String value, int start, int end) {
+        char[] folded = new char[end - start];
+        for (int i = start; i < end; i++) {
+            folded[i - start] = fold(value.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Case-insensitive hash over a string region, computed without allocating a substring
+     */
+    private static int hash(@NotNull String value, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(value.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Compares a folded segment against a region of the same length
+     */
+    private static boolean matches(@NotNull String segment, @NotNull String value, int start) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (segment.charAt(i) != fold(value.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // ===================================================================================================
+    // BUILDER
+    // ===================================================================================================
+
+    /**
+     * Mutable builder; the built trie must not be modified afterwards
+     */
+    public static final class Builder {
+
+        private final Node root = new Node("", 0);
+        private int size;
+        private boolean built;
+
+        /**
+         * Adds a raw permission node
+         * @param rawPermission the node, optionally prefixed with "-" and/or suffixed with ".*"
+         * @return this builder
+         */
+        @NotNull
+        public Builder add(@NotNull String rawPermission) {
+            if (built) {
+                throw new IllegalStateException("PermissionTrie has already been built");
+            }
+
+            boolean negated = rawPermission.startsWith("-");
+            int start = negated ? 1 : 0;
+            int end = rawPermission.length();
+
+            if (start >= end) {
+                return this;
+            }
+
+            // Universal wildcard (a negated "-*" has never been honoured and still isn't)
+            if (end - start == 1 && rawPermission.charAt(start) == '*') {
+                if (!negated) {
+                    root.flags |= WILDCARD_ALLOW;
+                    size++;
+                }
+                return this;
+            }
+
+            boolean wildcard = end - start > 2 && rawPermission.endsWith(".*");
+            if (wildcard) {
+                end -= 2;
+            }
+
+            Node node = root;
+            int segmentStart = start;
+            while (segmentStart <= end) {
+                int segmentEnd = rawPermission.indexOf('.', segmentStart);
+                if (segmentEnd < 0 || segmentEnd > end) {
+                    segmentEnd = end;
+                }
+                node = node.getOrCreateChild(rawPermission, segmentStart, segmentEnd);
+                segmentStart = segmentEnd + 1;
+            }
+
+            if (wildcard) {
+                node.flags |= negated ? WILDCARD_DENY : WILDCARD_ALLOW;
+            } else {
+                node.flags |= negated ? DENY : ALLOW;
+            }
+            size++;
+            return this;
+        }
+
+        @NotNull
+        public PermissionTrie build() {
+            built = true;
+            return new PermissionTrie(root, size);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package me.chickxn.permify.data.storage;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
@@ -10,6 +11,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
@@ -181,6 +183,16 @@ public class StorageLoader {
             }
 
             StorageModule storage = (StorageModule) storageInstance;
+
+            // Hand the module its own section of config.yml (e.g. "json:")
+            ConfigurationSection section = plugin.getConfig().getConfigurationSection(storageType.toLowerCase());
+            Map<String, Object> moduleConfig = section != null ? section.getValues(true) : Map.of();
+            // Reported only, modules written before their config was handed to them may still reject it
+            if (!storage.validateConfig(moduleConfig)) {
+                logger.warning("Storage module '" + storageType + "' reported an invalid configuration, loading it anyway");
+            }
+            storage.configure(moduleConfig);
+
             StorageHandler.registerStorage(storageType, storage, moduleInfo);
 
             logger.info("Successfully loaded storage module: " + storageType + " v" + moduleInfo.getVersion());
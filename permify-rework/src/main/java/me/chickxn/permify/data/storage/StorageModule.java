@@ -13,6 +13,7 @@ public abstract class StorageModule implements StorageInterface {
 
     protected boolean isRunning = false;
     protected long startTime = 0;
+    protected Map<String, Object> config = Map.of();
 
     /**
      * Starts the storage module
@@ -63,6 +64,36 @@ public abstract class StorageModule implements StorageInterface {
      */
     public abstract boolean validateConfig(@NotNull Map<String, Object> config);
 
+    /**
+     * Applies the module's section of the plugin configuration, called before {@link #start()}
+     * @param config configuration map (e.g. the "json" section of config.yml)
+     */
+    public void configure(@NotNull Map<String, Object> config) {
+        this.config = Map.copyOf(config);
+    }
+
+    /**
+     * Gets an integer option from the module configuration
+     * @param key the option key
+     * @param defaultValue value used when the option is missing or not a number
+     * @return the configured value
+     */
+    protected int getConfigInt(@NotNull String key, int defaultValue) {
+        Object value = config.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    /**
+     * Gets a boolean option from the module configuration
+     * @param key the option key
+     * @param defaultValue value used when the option is missing or not a boolean
+     * @return the configured value
+     */
+    protected boolean getConfigBoolean(@NotNull String key, boolean defaultValue) {
+        Object value = config.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
     /**
      * Performs an asynchronous health check
      * @return CompletableFuture with health status
@@ -3,10 +3,12 @@ package me.chickxn.permify.spigot;
 import lombok.Getter;
 import me.chickxn.permify.data.interfaces.GroupInterface;
 import me.chickxn.permify.data.interfaces.StorageInterface;
+import me.chickxn.permify.data.permission.ExpiryScheduler;
 import me.chickxn.permify.data.storage.StorageHandler;
 import me.chickxn.permify.data.storage.StorageLoader;
 import me.chickxn.permify.spigot.command.PermifyCommand;
 import me.chickxn.permify.spigot.handler.PermissionHandler;
+import me.chickxn.permify.spigot.listener.PermissionRegistryListener;
 import me.chickxn.permify.spigot.listener.PlayerJoinListener;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -125,6 +127,10 @@ public class PermifyBase extends JavaPlugin {
     private void registerListeners() {
         PluginManager pluginManager = getServer().getPluginManager();
         pluginManager.registerEvents(new PlayerJoinListener(permissionHandler), this);
+
+        PermissionRegistryListener registryListener = new PermissionRegistryListener(this);
+        pluginManager.registerEvents(registryListener, this);
+        registryListener.scheduleRebuild();
         getLogger().info("Event listeners registered");
     }
 
@@ -178,6 +184,9 @@ public class PermifyBase extends JavaPlugin {
             StorageHandler.shutdown();
             getLogger().info("Storage system shut down");
 
+            // Stop the expiry timer thread, a reload would otherwise leak it with its queued tasks
+            ExpiryScheduler.shutdown();
+
             getLogger().info("Permify has been disabled successfully!");
 
         } catch (Exception e) {
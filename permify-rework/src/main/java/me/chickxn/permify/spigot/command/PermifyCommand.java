@@ -6,7 +6,6 @@ import me.chickxn.permify.data.storage.StorageHandler;
 import me.chickxn.permify.spigot.PermifyBase;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -110,23 +109,19 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
 
         // Get player (online or offline)
         CompletableFuture.runAsync(() -> {
-            OfflinePlayer target = Bukkit.getOfflinePlayerIfCached(playerName);
+            UUID target = resolvePlayerUuid(playerName);
             if (target == null) {
-                target = Bukkit.getOfflinePlayer(playerName);
-            }
-
-            if (!target.hasPlayedBefore() && !target.isOnline()) {
                 sendMessage(sender, ERROR + "Player '" + playerName + "' has never played on this server!");
                 return;
             }
 
-            PlayerInterface playerData = StorageHandler.getActiveStorage().loadPlayer(target.getUniqueId());
+            PlayerInterface playerData = StorageHandler.getActiveStorage().loadPlayer(target);
             if (playerData == null) {
                 sendMessage(sender, ERROR + "Could not load player data!");
                 return;
             }
 
-            handleUserAction(sender, playerData, action, Arrays.copyOfRange(args, 3, args.length), target.getName());
+            handleUserAction(sender, playerData, action, Arrays.copyOfRange(args, 3, args.length), playerData.getName());
         });
 
         return true;
@@ -526,11 +521,8 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         }
 
         if (StorageHandler.getActiveStorage().deleteGroup(group)) {
+            // The storage publishes the deletion, which recomputes the players that were in the group
             sendMessage(sender, SUCCESS + "Deleted group " + PRIMARY + groupName);
-            // Update all online players
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                plugin.getPermissionHandler().updateAllPlayerPermissions();
-            });
         } else {
             sendMessage(sender, ERROR + "Failed to delete group!");
         }
@@ -609,7 +601,7 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         if (StorageHandler.getActiveStorage().addGroupPermission(group, permission)) {
             sendMessage(sender, SUCCESS + "Added permission " + PRIMARY + permission +
                     SUCCESS + " to group " + PRIMARY + group.getName());
-            updateAllPlayers();
+            updateGroupMembers(group.getName());
         } else {
             sendMessage(sender, ERROR + "Failed to add permission!");
         }
@@ -631,7 +623,7 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         if (StorageHandler.getActiveStorage().removeGroupPermission(group, permission)) {
             sendMessage(sender, SUCCESS + "Removed permission " + PRIMARY + permission +
                     SUCCESS + " from group " + PRIMARY + group.getName());
-            updateAllPlayers();
+            updateGroupMembers(group.getName());
         } else {
             sendMessage(sender, ERROR + "Failed to remove permission!");
         }
@@ -659,7 +651,7 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         if (StorageHandler.getActiveStorage().addGroupParent(group, parentGroup)) {
             sendMessage(sender, SUCCESS + "Added parent " + PRIMARY + parentName +
                     SUCCESS + " to group " + PRIMARY + group.getName());
-            updateAllPlayers();
+            updateGroupMembers(group.getName());
         } else {
             sendMessage(sender, ERROR + "Failed to add parent (would create cycle?)!");
         }
@@ -682,7 +674,7 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         if (StorageHandler.getActiveStorage().removeGroupParent(group, parentGroup)) {
             sendMessage(sender, SUCCESS + "Removed parent " + PRIMARY + parentName +
                     SUCCESS + " from group " + PRIMARY + group.getName());
-            updateAllPlayers();
+            updateGroupMembers(group.getName());
         } else {
             sendMessage(sender, ERROR + "Failed to remove parent!");
         }
@@ -708,7 +700,6 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         } else {
             sendMessage(sender, SUCCESS + "Set prefix for group " + PRIMARY + group.getName() + SUCCESS + " to: " + prefix);
         }
-        updateAllPlayers();
     }
 
     private void handleGroupSetSuffix(@NotNull CommandSender sender, @NotNull GroupInterface group, @NotNull String[] args) {
@@ -731,7 +722,6 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         } else {
             sendMessage(sender, SUCCESS + "Set suffix for group " + PRIMARY + group.getName() + SUCCESS + " to: " + suffix);
         }
-        updateAllPlayers();
     }
 
     private void handleGroupSetColor(@NotNull CommandSender sender, @NotNull GroupInterface group, @NotNull String[] args) {
@@ -764,7 +754,6 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
         } else {
             sendMessage(sender, SUCCESS + "Set color for group " + PRIMARY + group.getName() + SUCCESS + " to: " + PRIMARY + colorName);
         }
-        updateAllPlayers();
     }
 
     private void handleGroupSetPriority(@NotNull CommandSender sender, @NotNull GroupInterface group, @NotNull String[] args) {
@@ -777,7 +766,6 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
             int priority = Integer.parseInt(args[0]);
             StorageHandler.getActiveStorage().updateGroupDisplayProperties(group, null, null, null, null, priority);
             sendMessage(sender, SUCCESS + "Set priority for group " + PRIMARY + group.getName() + SUCCESS + " to: " + PRIMARY + priority);
-            updateAllPlayers();
         } catch (NumberFormatException e) {
             sendMessage(sender, ERROR + "Invalid number: " + args[0]);
         }
@@ -831,17 +819,13 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
 
     private void showUserInfo(@NotNull CommandSender sender, @NotNull String playerName) {
         CompletableFuture.runAsync(() -> {
-            OfflinePlayer target = Bukkit.getOfflinePlayerIfCached(playerName);
+            UUID target = resolvePlayerUuid(playerName);
             if (target == null) {
-                target = Bukkit.getOfflinePlayer(playerName);
-            }
-
-            if (!target.hasPlayedBefore() && !target.isOnline()) {
                 sendMessage(sender, ERROR + "Player '" + playerName + "' has never played on this server!");
                 return;
             }
 
-            PlayerInterface player = StorageHandler.getActiveStorage().loadPlayer(target.getUniqueId());
+            PlayerInterface player = StorageHandler.getActiveStorage().loadPlayer(target);
             if (player == null) {
                 sendMessage(sender, ERROR + "Could not load player data!");
                 return;
@@ -1204,19 +1188,28 @@ public class PermifyCommand implements CommandExecutor, TabCompleter {
     // UTILITY METHODS
     // ===================================================================================================
 
+    /**
+     * Resolves a name to a known player: online players first, then the storage's name index.
+     * Never falls back to a profile lookup, which could block on Mojang
+     */
+    @Nullable
+    private UUID resolvePlayerUuid(@NotNull String playerName) {
+        Player online = Bukkit.getPlayerExact(playerName);
+        if (online != null) {
+            return online.getUniqueId();
+        }
+        return StorageHandler.getActiveStorage().findPlayerUuid(playerName);
+    }
+
     private void updatePlayerPermissions(@NotNull String playerName) {
         Player player = Bukkit.getPlayerExact(playerName);
         if (player != null) {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                plugin.getPermissionHandler().updatePlayerPermissions(player);
-            });
+            plugin.getPermissionHandler().scheduleRecompute(player.getUniqueId());
         }
     }
 
-    private void updateAllPlayers() {
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            plugin.getPermissionHandler().updateAllPlayerPermissions();
-        });
+    private void updateGroupMembers(@NotNull String groupName) {
+        plugin.getPermissionHandler().updateGroupMembers(groupName);
     }
 
     private void sendMessage(@NotNull CommandSender sender, @NotNull String message) {
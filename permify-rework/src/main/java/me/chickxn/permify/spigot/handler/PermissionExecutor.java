@@ -0,0 +1,207 @@
+package me.chickxn.permify.spigot.handler;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Dedicated worker pool for permission work, kept off the JVM-wide common pool.
+ * Queued tasks run by priority lane (joins, then targeted edits, then bulk reloads) and in
+ * submission order within a lane. Each lane has its own bound, so a bulk reload can never
+ * crowd out joins; submissions to a full lane are rejected and counted.
+ */
+public class PermissionExecutor {
+
+    /**
+     * Priority lanes, in the order queued tasks are taken
+     */
+    public enum Priority {
+        JOIN,
+        TARGETED,
+        BULK
+    }
+
+    private final Logger logger;
+    private final ThreadPoolExecutor executor;
+    private final int laneCapacity;
+
+    private final AtomicInteger[] queued = new AtomicInteger[Priority.values().length];
+    private final AtomicLong[] rejected = new AtomicLong[Priority.values().length];
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * Creates the pool
+     * @param logger the logger to report failures to
+     * @param threads the number of worker threads
+     * @param laneCapacity the maximum number of queued tasks per lane
+     */
+    public PermissionExecutor(@NotNull Logger logger, int threads, int laneCapacity) {
+        this.logger = logger;
+        this.laneCapacity = Math.max(1, laneCapacity);
+
+        for (int i = 0; i < queued.length; i++) {
+            queued[i] = new AtomicInteger();
+            rejected[i] = new AtomicLong();
+        }
+
+        AtomicInteger threadIds = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "Permify-Worker-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        int size = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(size, size, 30L, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // ===================================================================================================
+    // SUBMISSION
+    // ===================================================================================================
+
+    /**
+     * Submits a task to a lane
+     * @param priority the lane to queue the task in
+     * @param task the work to run
+     * @return a future completed when the task finishes, or exceptionally with a
+     *         {@link RejectedExecutionException} if the lane is full or the pool is shut down
+     */
+    @NotNull
+    public CompletableFuture<Void> submit(@NotNull Priority priority, @NotNull Runnable task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        AtomicInteger lane = queued[priority.ordinal()];
+
+        if (lane.incrementAndGet() > laneCapacity) {
+            lane.decrementAndGet();
+            return reject(priority, future, "Permission " + priority.name().toLowerCase(Locale.ROOT) + " queue is full");
+        }
+
+        try {
+            executor.execute(new PrioritizedTask(priority, sequence.incrementAndGet(), task, future));
+        } catch (RejectedExecutionException e) {
+            lane.decrementAndGet();
+            return reject(priority, future, "Permission executor is shut down");
+        }
+        return future;
+    }
+
+    @NotNull
+    private CompletableFuture<Void> reject(@NotNull Priority priority, @NotNull CompletableFuture<Void> future, @NotNull String reason) {
+        rejected[priority.ordinal()].incrementAndGet();
+        future.completeExceptionally(new RejectedExecutionException(reason));
+        return future;
+    }
+
+    // ===================================================================================================
+    // LIFECYCLE
+    // ===================================================================================================
+
+    /**
+     * Stops accepting work and waits for queued tasks to finish
+     * Tasks still queued after the timeout are dropped and their futures cancelled, so no caller waits forever
+     * @param timeoutMillis how long to wait before interrupting the remaining tasks
+     * @return true if every task finished in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Runnable> dropped = executor.shutdownNow();
+        for (Runnable runnable : dropped) {
+            if (runnable instanceof PrioritizedTask task) {
+                task.future.completeExceptionally(new CancellationException("Permission executor shut down"));
+            }
+        }
+        for (AtomicInteger lane : queued) {
+            lane.set(0);
+        }
+        logger.warning("Permission executor did not drain in time, dropped " + dropped.size() + " queued tasks");
+        return false;
+    }
+
+    // ===================================================================================================
+    // STATISTICS
+    // ===================================================================================================
+
+    public int getQueued(@NotNull Priority priority) {
+        return queued[priority.ordinal()].get();
+    }
+
+    public long getRejected(@NotNull Priority priority) {
+        return rejected[priority.ordinal()].get();
+    }
+
+    public long getRejectedTotal() {
+        long total = 0;
+        for (AtomicLong count : rejected) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    // ===================================================================================================
+    // TASK
+    // ===================================================================================================
+
+    private final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final Priority priority;
+        private final long sequence;
+        private final Runnable task;
+        private final CompletableFuture<Void> future;
+
+        private PrioritizedTask(@NotNull Priority priority, long sequence, @NotNull Runnable task, @NotNull CompletableFuture<Void> future) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            queued[priority.ordinal()].decrementAndGet();
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                completed.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(@NotNull PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
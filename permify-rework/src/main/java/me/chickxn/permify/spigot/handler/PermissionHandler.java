@@ -3,6 +3,12 @@ package me.chickxn.permify.spigot.handler;
 import lombok.SneakyThrows;
 import me.chickxn.permify.data.interfaces.GroupInterface;
 import me.chickxn.permify.data.interfaces.PlayerInterface;
+import me.chickxn.permify.data.permission.ExpiryScheduler;
+import me.chickxn.permify.data.permission.PermissionInvalidation;
+import me.chickxn.permify.data.permission.PermissionInvalidationBus;
+import me.chickxn.permify.data.permission.PermissionSet;
+import me.chickxn.permify.data.permission.PermissionSnapshot;
+import me.chickxn.permify.data.permission.PermissionTableCache;
 import me.chickxn.permify.data.storage.StorageHandler;
 import me.chickxn.permify.spigot.permissible.WildcardPermissible;
 import org.bukkit.Bukkit;
@@ -17,6 +23,8 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 /**
@@ -31,21 +39,59 @@ public class PermissionHandler {
     private final Map<UUID, PermissionAttachment> attachments = new ConcurrentHashMap<>();
     private final Map<UUID, WildcardPermissible> wildcardPermissibles = new ConcurrentHashMap<>();
 
-    // Permission caching
-    private final Map<UUID, Set<String>> permissionCache = new ConcurrentHashMap<>();
-    private final Map<UUID, Long> cacheTimestamps = new ConcurrentHashMap<>();
-    private static final long CACHE_DURATION = 5000; // 5 seconds cache
+    // Permission snapshots, rebuilt only when their inputs change
+    private final Map<UUID, PermissionSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong snapshotVersions = new AtomicLong();
+
+    // Group tables shared by every player with the same group combination
+    private final PermissionTableCache tableCache = new PermissionTableCache();
+
+    // Dependency index: which groups (including inherited ones) each online player's snapshot was built from.
+    // Membership and parent changes publish an invalidation, so the recompute keeps both directions current
+    private final Map<UUID, Set<String>> playerDependencies = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> groupDependents = new ConcurrentHashMap<>();
+    private final Consumer<PermissionInvalidation> invalidationListener = this::handleInvalidation;
+
+    // Collapses bursts of edits into one rebuild per player per tick
+    private final RecomputeScheduler recomputeScheduler;
+
+    // Dedicated workers for permission calculation, joins before edits before bulk reloads
+    private final PermissionExecutor executor;
+
+    // Expiry entry that rebuilds a snapshot when its first temporary entry lapses, in the handler's own namespace
+    private static final String EXPIRY_NAMESPACE = "handler";
+    private static final String SNAPSHOT_EXPIRY = "snapshot";
+
+    // Backing map of PermissionAttachment, written directly so a whole diff costs one recalculation
+    private static final Field ATTACHMENT_PERMISSIONS_FIELD = findAttachmentPermissionsField();
 
     // Context tracking
     private final Map<UUID, String> playerWorlds = new ConcurrentHashMap<>();
     private String serverName;
 
+    // Serve permissions straight from the snapshot instead of a PermissionAttachment
+    private final boolean attachmentFree;
+
     public PermissionHandler(@NotNull Plugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
         this.serverName = plugin.getConfig().getString("server-name", "default");
+        this.attachmentFree = plugin.getConfig().getBoolean("permissions.attachment-free", false);
+        this.recomputeScheduler = new RecomputeScheduler(plugin, this);
+        this.executor = new PermissionExecutor(
+                logger,
+                plugin.getConfig().getInt("permissions.worker-threads", Math.max(2, Runtime.getRuntime().availableProcessors() / 2)),
+                plugin.getConfig().getInt("permissions.queue-capacity", 1024)
+        );
+
+        if (attachmentFree) {
+            logger.info("Attachment-free permission mode enabled");
+        }
+
+        // Recompute exactly the players a storage change affects
+        PermissionInvalidationBus.subscribe(invalidationListener);
 
-        // Start cleanup task for expired permissions
+        // Start cleanup task for unused group tables
         startCleanupTask();
     }
 
@@ -82,85 +128,251 @@ public class PermissionHandler {
 
         // Clean up other data
         wildcardPermissibles.remove(uuid);
-        permissionCache.remove(uuid);
-        cacheTimestamps.remove(uuid);
+        snapshots.remove(uuid);
         playerWorlds.remove(uuid);
+        trackDependencies(uuid, Set.of());
+        ExpiryScheduler.cancel(EXPIRY_NAMESPACE, uuid, SNAPSHOT_EXPIRY);
     }
 
     /**
      * Updates all permissions for a player
      */
     public CompletableFuture<Void> updatePlayerPermissions(@NotNull Player player) {
-        return CompletableFuture.runAsync(() -> {
+        return updatePlayerPermissions(player, PermissionExecutor.Priority.TARGETED);
+    }
+
+    /**
+     * Updates all permissions for a player in the given worker lane
+     */
+    public CompletableFuture<Void> updatePlayerPermissions(@NotNull Player player, @NotNull PermissionExecutor.Priority priority) {
+        return executor.submit(priority, () -> {
             try {
                 UUID uuid = player.getUniqueId();
 
                 // Update world tracking
                 playerWorlds.put(uuid, player.getWorld().getName());
 
-                // Get attachment
-                PermissionAttachment attachment = getAttachment(player);
-                if (attachment == null) {
-                    logger.warning("Could not get permission attachment for " + player.getName());
+                // Rebuild the snapshot, an update means the inputs have changed
+                PermissionSnapshot snapshot = rebuildSnapshot(player);
+
+                // Attachment-free mode: hand the snapshot to the injected permissible and skip Bukkit entirely
+                WildcardPermissible injected = wildcardPermissibles.get(uuid);
+                if (attachmentFree && injected != null) {
+                    applySnapshotDirectly(player, injected, snapshot);
                     return;
                 }
 
-                // Clear existing permissions
-                Set<String> currentPerms = new HashSet<>(attachment.getPermissions().keySet());
-                currentPerms.forEach(attachment::unsetPermission);
-
-                // Get all effective permissions
-                Set<String> permissions = getAllEffectivePermissions(player);
-
-                // Apply permissions
-                for (String perm : permissions) {
-                    if (perm.startsWith("-")) {
-                        // Negative permission
-                        String actualPerm = perm.substring(1);
-                        attachment.setPermission(actualPerm, false);
-                    } else {
-                        // Positive permission
-                        attachment.setPermission(perm, true);
-                    }
-                }
+                // Attachments and recalculation belong to the main thread, only the snapshot is built here
+                Bukkit.getScheduler().runTask(plugin, () -> applySnapshotToAttachment(player, snapshot));
 
-                // Update cache
-                permissionCache.put(uuid, new HashSet<>(permissions));
-                cacheTimestamps.put(uuid, System.currentTimeMillis());
+            } catch (Exception e) {
+                logger.severe("Error updating permissions for " + player.getName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Brings the player's attachment in line with a snapshot, must run on the main thread
+     */
+    private void applySnapshotToAttachment(@NotNull Player player, @NotNull PermissionSnapshot snapshot) {
+        try {
+            UUID uuid = player.getUniqueId();
+
+            // A newer snapshot has its own task queued, and a player who left has nothing to update
+            PermissionSnapshot latest = snapshots.get(uuid);
+            if (!player.isOnline() || (latest != null && latest.getVersion() > snapshot.getVersion())) {
+                return;
+            }
+
+            // Get attachment
+            PermissionAttachment attachment = getAttachment(player);
+            if (attachment == null) {
+                logger.warning("Could not get permission attachment for " + player.getName());
+                return;
+            }
+
+            // Apply only the nodes that differ from what the attachment holds
+            PermissionSet permissions = snapshot.getPermissions();
+            int changed = applyPermissionDiff(player, attachment, permissions);
+            if (changed == 0) {
+                logger.fine("Permissions of " + player.getName() + " are unchanged");
+                return;
+            }
+
+            // Clear wildcard permissible cache if exists
+            WildcardPermissible wp = wildcardPermissibles.get(uuid);
+            if (wp != null) {
+                wp.clearCache();
+            }
 
-                // Recalculate permissions
-                player.recalculatePermissions();
+            logger.fine("Updated " + permissions.size() + " permissions for " + player.getName() + " (" + changed + " changed)");
+
+        } catch (Exception e) {
+            logger.severe("Error updating permissions for " + player.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 
-                // Clear wildcard permissible cache if exists
-                WildcardPermissible wp = wildcardPermissibles.get(uuid);
-                if (wp != null) {
-                    wp.clearCache();
+    /**
+     * Publishes a snapshot to the injected permissible, used instead of an attachment in attachment-free mode
+     */
+    private void applySnapshotDirectly(@NotNull Player player, @NotNull WildcardPermissible permissible, @NotNull PermissionSnapshot snapshot) {
+        // Drop an attachment left over from before the permissible was injected, Bukkit expects that on the main thread
+        PermissionAttachment attachment = attachments.remove(player.getUniqueId());
+        if (attachment != null) {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (player.isOnline()) {
+                    player.removeAttachment(attachment);
                 }
+            });
+        }
 
-                logger.fine("Updated " + permissions.size() + " permissions for " + player.getName());
+        PermissionSnapshot previous = permissible.setPermifySnapshot(snapshot);
+        if (previous != null && previous.getVersion() >= snapshot.getVersion()) {
+            logger.fine("Skipped outdated permissions of " + player.getName());
+            return;
+        }
+        if (previous != null && previous.getPermissions().equals(snapshot.getPermissions())) {
+            logger.fine("Permissions of " + player.getName() + " are unchanged");
+            return;
+        }
 
-            } catch (Exception e) {
-                logger.severe("Error updating permissions for " + player.getName() + ": " + e.getMessage());
-                e.printStackTrace();
+        // Nothing was recalculated, so refresh the client's command tree explicitly
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                player.updateCommands();
             }
         });
+
+        logger.fine("Published " + snapshot.getPermissions().size() + " permissions for " + player.getName() + " without attachment");
+    }
+
+    /**
+     * Brings an attachment in line with a permission set, touching only added, removed and flipped nodes
+     * @return the number of changed nodes, 0 if the attachment was already up to date
+     */
+    private int applyPermissionDiff(@NotNull Player player, @NotNull PermissionAttachment attachment, @NotNull PermissionSet permissions) {
+        // Desired state, keyed the way Bukkit stores attachment nodes
+        Map<String, Boolean> desired = new HashMap<>(permissions.size() * 2);
+        for (String perm : permissions) {
+            boolean negative = perm.startsWith("-");
+            String name = (negative ? perm.substring(1) : perm).toLowerCase(Locale.ROOT);
+            if (negative || !desired.containsKey(name)) {
+                desired.put(name, !negative);
+            }
+        }
+
+        Map<String, Boolean> backing = getBackingPermissions(attachment);
+        Map<String, Boolean> current = backing != null ? backing : attachment.getPermissions();
+
+        List<String> removed = new ArrayList<>();
+        for (String name : current.keySet()) {
+            if (!desired.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+
+        Map<String, Boolean> updated = new HashMap<>();
+        for (Map.Entry<String, Boolean> entry : desired.entrySet()) {
+            if (!entry.getValue().equals(current.get(entry.getKey()))) {
+                updated.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (removed.isEmpty() && updated.isEmpty()) {
+            return 0;
+        }
+
+        if (backing != null) {
+            // Write the whole delta, then let Bukkit recalculate once
+            removed.forEach(backing::remove);
+            backing.putAll(updated);
+            player.recalculatePermissions();
+        } else {
+            // Fallback: every call recalculates on its own, so no extra recalculation is needed
+            removed.forEach(attachment::unsetPermission);
+            updated.forEach(attachment::setPermission);
+        }
+
+        return removed.size() + updated.size();
+    }
+
+    /**
+     * Gets the live permission map of an attachment
+     * @return the map, or null if it is not accessible on this server version
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private Map<String, Boolean> getBackingPermissions(@NotNull PermissionAttachment attachment) {
+        if (ATTACHMENT_PERMISSIONS_FIELD == null) {
+            return null;
+        }
+        try {
+            return (Map<String, Boolean>) ATTACHMENT_PERMISSIONS_FIELD.get(attachment);
+        } catch (Exception e) {
+            logger.fine("Could not access attachment permissions: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Field findAttachmentPermissionsField() {
+        try {
+            Field field = PermissionAttachment.class.getDeclaredField("permissions");
+            if (!Map.class.isAssignableFrom(field.getType())) {
+                return null;
+            }
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     /**
      * Updates permissions for all online players
      */
     public CompletableFuture<Void> updateAllPlayerPermissions() {
-        return CompletableFuture.runAsync(() -> {
-            logger.info("Updating permissions for all online players...");
+        logger.info("Updating permissions for all online players...");
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                futures.add(updatePlayerPermissions(player));
-            }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            futures.add(updatePlayerPermissions(player, PermissionExecutor.Priority.BULK));
+        }
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            logger.info("Finished updating permissions for " + futures.size() + " players");
-        });
+        // Completes once every player is done, without parking a worker thread on the others
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenRun(() -> logger.info("Finished updating permissions for " + futures.size() + " players"));
+    }
+
+    /**
+     * Schedules a coalesced recompute for a player, applied at the latest on the next tick
+     * Prefer this over {@link #updatePlayerPermissions(Player)} for edits that may come in bursts
+     */
+    public void scheduleRecompute(@NotNull UUID uuid) {
+        recomputeScheduler.request(uuid);
+    }
+
+    /**
+     * Schedules a recompute for the online players that are in a group, directly or through inheritance
+     * @param groupName the group that changed
+     */
+    public void updateGroupMembers(@NotNull String groupName) {
+        Set<UUID> members = getGroupMembers(groupName);
+        for (UUID uuid : members) {
+            recomputeScheduler.request(uuid);
+        }
+        logger.fine("Scheduled recompute for " + members.size() + " members of group " + groupName);
+    }
+
+    /**
+     * Gets the online players whose permissions depend on a group, directly or through inheritance
+     */
+    @NotNull
+    public Set<UUID> getGroupMembers(@NotNull String groupName) {
+        Set<UUID> members = groupDependents.get(groupName.toLowerCase(Locale.ROOT));
+        return members != null ? Set.copyOf(members) : Set.of();
     }
 
     // ===================================================================================================
@@ -169,33 +381,57 @@ public class PermissionHandler {
 
     /**
      * Gets all effective permissions for a player (with caching)
+     * The returned set is immutable
      */
     @NotNull
-    public Set<String> getAllEffectivePermissions(@NotNull Player player) {
-        UUID uuid = player.getUniqueId();
+    public PermissionSet getAllEffectivePermissions(@NotNull Player player) {
+        return getSnapshot(player).getPermissions();
+    }
 
-        // Check cache first
-        if (isCacheValid(uuid)) {
-            return new HashSet<>(permissionCache.get(uuid));
+    /**
+     * Gets the current permission snapshot of a player, building it if there is none yet
+     */
+    @NotNull
+    public PermissionSnapshot getSnapshot(@NotNull Player player) {
+        PermissionSnapshot snapshot = snapshots.get(player.getUniqueId());
+        if (snapshot != null && snapshot.isValid()) {
+            return snapshot;
         }
+        return rebuildSnapshot(player);
+    }
 
-        Set<String> permissions = calculateEffectivePermissions(player);
+    /**
+     * Calculates a new snapshot for a player and publishes it
+     */
+    @NotNull
+    private PermissionSnapshot rebuildSnapshot(@NotNull Player player) {
+        // Take the version before reading storage, so a later invalidation always wins
+        long version = snapshotVersions.incrementAndGet();
+        PermissionSnapshot snapshot = calculateEffectivePermissions(player, version);
 
-        // Update cache
-        permissionCache.put(uuid, new HashSet<>(permissions));
-        cacheTimestamps.put(uuid, System.currentTimeMillis());
+        UUID uuid = player.getUniqueId();
+        PermissionSnapshot published = snapshots.merge(uuid, snapshot, PermissionSnapshot::newest);
 
-        return permissions;
+        // Rebuild exactly when the first temporary entry lapses, instead of comparing timestamps on checks
+        if (published == snapshot) {
+            if (snapshot.hasExpiry()) {
+                ExpiryScheduler.schedule(EXPIRY_NAMESPACE, uuid, SNAPSHOT_EXPIRY, snapshot.getExpiresAt(), () -> recomputeScheduler.request(uuid));
+            } else {
+                ExpiryScheduler.cancel(EXPIRY_NAMESPACE, uuid, SNAPSHOT_EXPIRY);
+            }
+        }
+        return published.isValid() ? published : snapshot;
     }
 
     /**
      * Calculates effective permissions without caching
+     * Group permissions come from a shared table, player specific permissions are layered on top
      */
     @NotNull
-    private Set<String> calculateEffectivePermissions(@NotNull Player player) {
+    private PermissionSnapshot calculateEffectivePermissions(@NotNull Player player, long version) {
         if (StorageHandler.getActiveStorage() == null) {
             logger.warning("No active storage - cannot calculate permissions for " + player.getName());
-            return Collections.emptySet();
+            return new PermissionSnapshot(version, PermissionSet.EMPTY);
         }
 
         try {
@@ -205,23 +441,39 @@ public class PermissionHandler {
                 playerData = StorageHandler.getActiveStorage().createPlayer(player.getUniqueId(), player.getName());
             }
 
-            Set<String> permissions = new LinkedHashSet<>();
+            PermissionSet.Builder permissions = new PermissionSet.Builder();
 
             // 1. Add direct player permissions
             permissions.addAll(playerData.getDirectPermissions());
 
-            // 2. Add group permissions (by priority)
-            List<GroupInterface> groups = playerData.getGroups();
-            for (GroupInterface group : groups) {
-                permissions.addAll(group.getAllPermissions()); // This includes inherited permissions
+            // 2. Resolve the shared group table (closures include inherited permissions)
+            List<Set<String>> groupPermissions = new ArrayList<>();
+            // Temporary groups past their deadline no longer count, even if storage has not removed them yet
+            long now = System.currentTimeMillis();
+            long expiresAt = PermissionSnapshot.NEVER;
+            Map<GroupInterface, LocalDateTime> temporaryGroups = playerData.getTemporaryGroups();
+            Set<String> dependencies = new HashSet<>();
+            for (GroupInterface group : playerData.getGroups()) {
+                LocalDateTime expiry = temporaryGroups.get(group);
+                if (expiry != null) {
+                    long deadline = ExpiryScheduler.toEpochMillis(expiry);
+                    if (deadline <= now) {
+                        continue;
+                    }
+                    expiresAt = Math.min(expiresAt, deadline);
+                }
+                groupPermissions.add(group.getAllPermissions());
+                collectGroupDependencies(group, dependencies);
             }
+            PermissionSnapshot groupTable = tableCache.resolve(groupPermissions);
+            trackDependencies(player.getUniqueId(), dependencies);
 
-            // 3. Add temporary permissions (check expiry)
-            Map<String, LocalDateTime> tempPerms = playerData.getTemporaryPermissions();
-            LocalDateTime now = LocalDateTime.now();
-            for (Map.Entry<String, LocalDateTime> entry : tempPerms.entrySet()) {
-                if (entry.getValue().isAfter(now)) {
+            // 3. Add temporary permissions and remember when the first of them (or a temporary group) lapses
+            for (Map.Entry<String, LocalDateTime> entry : playerData.getTemporaryPermissions().entrySet()) {
+                long deadline = ExpiryScheduler.toEpochMillis(entry.getValue());
+                if (deadline > now) {
                     permissions.add(entry.getKey());
+                    expiresAt = Math.min(expiresAt, deadline);
                 }
             }
 
@@ -230,97 +482,75 @@ public class PermissionHandler {
             permissions.addAll(playerData.getWorldPermissions(worldName));
             permissions.addAll(playerData.getServerPermissions(serverName));
 
-            // 5. Process negative permissions (remove conflicts)
-            Set<String> processedPermissions = processNegativePermissions(permissions);
+            // 5. Layer the player specific permissions over the group table (negations resolved across both)
+            PermissionSnapshot snapshot = PermissionSnapshot.layered(version, groupTable, permissions.build(), expiresAt);
 
-            logger.fine("Calculated " + processedPermissions.size() + " effective permissions for " + player.getName());
-            return processedPermissions;
+            logger.fine("Calculated " + snapshot.getPermissions().size() + " effective permissions for " + player.getName());
+            return snapshot;
 
         } catch (Exception e) {
             logger.severe("Error calculating permissions for " + player.getName() + ": " + e.getMessage());
             e.printStackTrace();
-            return Collections.emptySet();
+            return new PermissionSnapshot(version, PermissionSet.EMPTY);
         }
     }
 
+    // ===================================================================================================
+    // INVALIDATION
+    // ===================================================================================================
+
     /**
-     * Processes negative permissions and resolves conflicts
+     * Recomputes the online players affected by a storage change
+     * Called from whichever thread changed the data, so it only schedules work
      */
-    @NotNull
-    private Set<String> processNegativePermissions(@NotNull Set<String> rawPermissions) {
-        Set<String> positivePerms = new HashSet<>();
-        Set<String> negativePerms = new HashSet<>();
-
-        // Separate positive and negative permissions
-        for (String perm : rawPermissions) {
-            if (perm.startsWith("-")) {
-                negativePerms.add(perm.substring(1));
-            } else {
-                positivePerms.add(perm);
-            }
-        }
-
-        // Remove negated permissions
-        positivePerms.removeAll(negativePerms);
-
-        // Add back negative permissions with prefix for attachment
-        Set<String> finalPermissions = new HashSet<>(positivePerms);
-        for (String negPerm : negativePerms) {
-            finalPermissions.add("-" + negPerm);
+    private void handleInvalidation(@NotNull PermissionInvalidation invalidation) {
+        switch (invalidation.getScope()) {
+            case PLAYER -> recomputeScheduler.request(invalidation.getPlayerId());
+            case GROUP -> updateGroupMembers(invalidation.getGroupName());
+            case ALL -> recomputeScheduler.requestAll();
         }
-
-        return finalPermissions;
     }
 
     /**
-     * Checks if a specific player has a permission
+     * Adds a group and every group it inherits from to a dependency set
      */
-    public boolean hasPermission(@NotNull Player player, @NotNull String permission) {
-        Set<String> permissions = getAllEffectivePermissions(player);
-
-        // Check direct permission
-        if (permissions.contains(permission)) {
-            return true;
+    private void collectGroupDependencies(@NotNull GroupInterface group, @NotNull Set<String> dependencies) {
+        if (!dependencies.add(group.getName().toLowerCase(Locale.ROOT))) {
+            return;
         }
-
-        // Check negative permission
-        if (permissions.contains("-" + permission)) {
-            return false;
+        for (GroupInterface parent : group.getParentGroups()) {
+            collectGroupDependencies(parent, dependencies);
         }
-
-        // Check wildcard permissions
-        return checkWildcardPermission(permission, permissions);
     }
 
     /**
-     * Checks wildcard permissions
+     * Replaces the groups a player depends on, keeping the reverse index in sync
      */
-    private boolean checkWildcardPermission(@NotNull String permission, @NotNull Set<String> permissions) {
-        // Check for exact wildcard match
-        if (permissions.contains("*")) {
-            return true;
-        }
-
-        // Check hierarchical wildcards
-        String[] parts = permission.split("\\.");
-        StringBuilder builder = new StringBuilder();
-
-        for (int i = 0; i < parts.length; i++) {
-            if (i > 0) builder.append(".");
-            builder.append(parts[i]);
-
-            String wildcard = builder.toString() + ".*";
-            String negativeWildcard = "-" + wildcard;
-
-            if (permissions.contains(negativeWildcard)) {
-                return false;
-            }
-            if (permissions.contains(wildcard)) {
-                return true;
+    private void trackDependencies(@NotNull UUID uuid, @NotNull Set<String> dependencies) {
+        Set<String> previous = dependencies.isEmpty()
+                ? playerDependencies.remove(uuid)
+                : playerDependencies.put(uuid, dependencies);
+
+        if (previous != null) {
+            for (String group : previous) {
+                if (!dependencies.contains(group)) {
+                    groupDependents.computeIfPresent(group, (name, dependents) -> {
+                        dependents.remove(uuid);
+                        return dependents.isEmpty() ? null : dependents;
+                    });
+                }
             }
         }
+        for (String group : dependencies) {
+            groupDependents.computeIfAbsent(group, name -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
 
-        return false;
+    /**
+     * Checks if a specific player has a permission
+     */
+    public boolean hasPermission(@NotNull Player player, @NotNull String permission) {
+        return getSnapshot(player).hasPermission(permission);
     }
 
     // ===================================================================================================
@@ -342,6 +572,14 @@ public class PermissionHandler {
             WildcardPermissible wp = new WildcardPermissible(player);
             field.set(player, wp);
 
+            if (attachmentFree) {
+                // Serve the current snapshot right away, updatePlayerPermissions replaces it on change
+                PermissionSnapshot snapshot = snapshots.get(player.getUniqueId());
+                if (snapshot != null && snapshot.isValid()) {
+                    wp.setPermifySnapshot(snapshot);
+                }
+            }
+
             wildcardPermissibles.put(player.getUniqueId(), wp);
             logger.fine("Injected WildcardPermissible for " + player.getName());
             return true;
@@ -377,7 +615,7 @@ public class PermissionHandler {
      * Called when a player joins the server
      */
     public CompletableFuture<Void> onPlayerJoin(@NotNull Player player) {
-        return CompletableFuture.runAsync(() -> {
+        return executor.submit(PermissionExecutor.Priority.JOIN, () -> {
             try {
                 logger.fine("Processing join for " + player.getName());
 
@@ -389,6 +627,9 @@ public class PermissionHandler {
 
                     // Add to default groups
                     addToDefaultGroups(playerData);
+                } else if (!playerData.getName().equals(player.getName())) {
+                    // Renamed since the last join
+                    StorageHandler.getActiveStorage().updatePlayerName(playerData, player.getName());
                 }
 
                 // Update metadata
@@ -402,7 +643,7 @@ public class PermissionHandler {
                 // Inject wildcard permissible
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     injectWildcardPermissible(player);
-                    updatePlayerPermissions(player);
+                    updatePlayerPermissions(player, PermissionExecutor.Priority.JOIN);
                 });
 
             } catch (Exception e) {
@@ -469,22 +710,12 @@ public class PermissionHandler {
         }
     }
 
-    /**
-     * Checks if permission cache is valid for a player
-     */
-    private boolean isCacheValid(@NotNull UUID uuid) {
-        Long timestamp = cacheTimestamps.get(uuid);
-        return timestamp != null &&
-                (System.currentTimeMillis() - timestamp) < CACHE_DURATION &&
-                permissionCache.containsKey(uuid);
-    }
-
     /**
      * Invalidates permission cache for a player
      */
     public void invalidateCache(@NotNull UUID uuid) {
-        permissionCache.remove(uuid);
-        cacheTimestamps.remove(uuid);
+        // Leave a marker instead of removing, so a rebuild that is still running cannot publish stale data
+        snapshots.put(uuid, PermissionSnapshot.invalidated(snapshotVersions.incrementAndGet()));
 
         // Also clear wildcard permissible cache
         WildcardPermissible wp = wildcardPermissibles.get(uuid);
@@ -497,8 +728,7 @@ public class PermissionHandler {
      * Invalidates cache for all players
      */
     public void invalidateAllCaches() {
-        permissionCache.clear();
-        cacheTimestamps.clear();
+        snapshots.replaceAll((uuid, snapshot) -> PermissionSnapshot.invalidated(snapshotVersions.incrementAndGet()));
         wildcardPermissibles.values().forEach(WildcardPermissible::clearCache);
     }
 
@@ -509,36 +739,41 @@ public class PermissionHandler {
     public Map<String, Object> getStatistics() {
         return Map.of(
                 "attachments", attachments.size(),
-                "cached_players", permissionCache.size(),
+                "attachment_free", attachmentFree,
+                "cached_players", snapshots.values().stream().filter(PermissionSnapshot::isValid).count(),
+                "snapshot_version", snapshotVersions.get(),
+                "shared_tables", tableCache.size(),
                 "wildcard_permissibles", wildcardPermissibles.size(),
+                "pending_recomputes", recomputeScheduler.getPendingCount(),
+                "rejected_tasks", executor.getRejectedTotal(),
                 "cache_hit_rate", calculateCacheHitRate()
         );
     }
 
     private double calculateCacheHitRate() {
         // Simple cache hit rate calculation - could be improved
-        return permissionCache.isEmpty() ? 0.0 :
-                Math.min(1.0, permissionCache.size() / (double) Math.max(1, Bukkit.getOnlinePlayers().size()));
+        return snapshots.isEmpty() ? 0.0 :
+                Math.min(1.0, snapshots.size() / (double) Math.max(1, Bukkit.getOnlinePlayers().size()));
     }
 
     /**
-     * Starts cleanup task for expired permissions
+     * Starts cleanup task for expired entries and unused group tables
      */
     private void startCleanupTask() {
+        long intervalTicks = 20L * 60L * Math.max(1, plugin.getConfig().getInt("permissions.cleanup-interval-minutes", 1));
         Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
             try {
+                // Temporary entries expire on their own deadline, this sweep only catches any that were missed.
+                // Removed entries publish their own invalidations, so affected players are recomputed
                 if (StorageHandler.getActiveStorage() != null) {
-                    int cleaned = StorageHandler.getActiveStorage().cleanupExpiredEntries();
-                    if (cleaned > 0) {
-                        logger.info("Cleaned up " + cleaned + " expired permission entries");
-                        // Invalidate all caches since permissions might have changed
-                        invalidateAllCaches();
-                    }
+                    StorageHandler.getActiveStorage().cleanupExpiredEntries();
                 }
+
+                tableCache.retainAll(snapshots.values());
             } catch (Exception e) {
                 logger.warning("Error during permission cleanup: " + e.getMessage());
             }
-        }, 20L * 60L, 20L * 60L); // Run every minute
+        }, intervalTicks, intervalTicks);
     }
 
     /**
@@ -547,6 +782,12 @@ public class PermissionHandler {
     public void shutdown() {
         logger.info("Shutting down PermissionHandler...");
 
+        PermissionInvalidationBus.unsubscribe(invalidationListener);
+        recomputeScheduler.clear();
+
+        // Let queued work finish before the data it reads is torn down
+        executor.shutdown(5000L);
+
         // Remove all attachments
         for (Player player : Bukkit.getOnlinePlayers()) {
             removeAttachment(player);
@@ -555,9 +796,11 @@ public class PermissionHandler {
         // Clear all data
         attachments.clear();
         wildcardPermissibles.clear();
-        permissionCache.clear();
-        cacheTimestamps.clear();
+        snapshots.clear();
+        tableCache.clear();
         playerWorlds.clear();
+        playerDependencies.clear();
+        groupDependents.clear();
 
         logger.info("PermissionHandler shutdown complete");
     }
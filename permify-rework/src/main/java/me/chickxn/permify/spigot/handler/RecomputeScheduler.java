@@ -0,0 +1,101 @@
+package me.chickxn.permify.spigot.handler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces permission recomputes for bursts of edits.
+ * Every request made before the next tick collapses into one rebuild per player, and a player
+ * whose rebuild is still running is recomputed once more after it finishes instead of in parallel.
+ */
+public class RecomputeScheduler {
+
+    private final Plugin plugin;
+    private final PermissionHandler permissionHandler;
+
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    public RecomputeScheduler(@NotNull Plugin plugin, @NotNull PermissionHandler permissionHandler) {
+        this.plugin = plugin;
+        this.permissionHandler = permissionHandler;
+    }
+
+    /**
+     * Requests a recompute for a player, applied at the latest on the next tick
+     */
+    public void request(@NotNull UUID uuid) {
+        pending.add(uuid);
+        scheduleFlush();
+    }
+
+    /**
+     * Requests a recompute for every online player
+     */
+    public void requestAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            pending.add(player.getUniqueId());
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Gets the number of players waiting for a recompute
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Drops every pending request
+     */
+    public void clear() {
+        pending.clear();
+    }
+
+    private void scheduleFlush() {
+        if (!plugin.isEnabled() || !flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, this::flush);
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+
+        for (UUID uuid : pending) {
+            // Already rebuilding, stays pending and is picked up when that rebuild completes
+            if (inFlight.contains(uuid) || !pending.remove(uuid)) {
+                continue;
+            }
+
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null) {
+                continue;
+            }
+
+            // No invalidation first: the stale snapshot keeps serving checks until the rebuild, which takes a
+            // newer version, replaces it, so no caller rebuilds synchronously in between
+            inFlight.add(uuid);
+            permissionHandler.updatePlayerPermissions(player).whenComplete((result, error) -> {
+                inFlight.remove(uuid);
+                if (error instanceof RejectedExecutionException) {
+                    // Workers are saturated, retry on a later tick instead of dropping the edit
+                    pending.add(uuid);
+                }
+                if (pending.contains(uuid)) {
+                    scheduleFlush();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package me.chickxn.permify.spigot.listener;
+
+import me.chickxn.permify.spigot.permissible.WildcardExpansionIndex;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the wildcard expansion index in sync with the server's permission registry
+ * Rebuilds are coalesced to one per tick, since plugins are usually enabled in bulk
+ */
+public class PermissionRegistryListener implements Listener {
+
+    private final Plugin plugin;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+
+    public PermissionRegistryListener(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(@NotNull PluginEnableEvent event) {
+        scheduleRebuild();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(@NotNull PluginDisableEvent event) {
+        if (event.getPlugin() != plugin) {
+            scheduleRebuild();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerLoad(@NotNull ServerLoadEvent event) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Rebuilds the index on the next tick, once for any number of events in between
+     */
+    public void scheduleRebuild() {
+        if (!plugin.isEnabled() || !rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            rebuildScheduled.set(false);
+            try {
+                WildcardExpansionIndex.rebuild(Bukkit.getPluginManager());
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error rebuilding wildcard expansion index: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,188 @@
+package me.chickxn.permify.spigot.permissible;
+
+import me.chickxn.permify.data.permission.PermissionSet;
+import org.bukkit.permissions.Permission;
+import org.bukkit.plugin.PluginManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Wildcard expansion index derived from the server's registered {@link Permission} objects.
+ * "*" expands to every registered node and "foo.*" to every registered node below "foo",
+ * plus the children a registered wildcard permission grants. Expansions are computed once per
+ * registry generation and shared by all players. It also resolves the children of registered
+ * permissions the way Bukkit does for attachment nodes, for the attachment-free mode.
+ */
+public final class WildcardExpansionIndex {
+
+    private static final Logger logger = Logger.getLogger("Permify-WildcardExpansion");
+    private static volatile WildcardExpansionIndex current = new WildcardExpansionIndex(0L, new String[0], Map.of());
+
+    private final long generation;
+    private final String[] nodes;                          // sorted, lower-cased
+    private final Map<String, Map<String, Boolean>> children; // permission -> its registered children
+    private final Map<String, PermissionSet> expansions = new ConcurrentHashMap<>();
+
+    private WildcardExpansionIndex(long generation, @NotNull String[] nodes, @NotNull Map<String, Map<String, Boolean>> children) {
+        this.generation = generation;
+        this.nodes = nodes;
+        this.children = children;
+    }
+
+    // ===================================================================================================
+    // REGISTRY
+    // ===================================================================================================
+
+    /**
+     * Gets the index for the current registry generation
+     */
+    @NotNull
+    public static WildcardExpansionIndex get() {
+        return current;
+    }
+
+    /**
+     * Rebuilds the index from the plugin manager's permission registry
+     * Must be called from the main thread
+     * @param pluginManager the plugin manager to read registered permissions from
+     */
+    public static void rebuild(@NotNull PluginManager pluginManager) {
+        Set<String> allNodes = new HashSet<>();
+        Map<String, Map<String, Boolean>> children = new HashMap<>();
+
+        for (Permission permission : pluginManager.getPermissions()) {
+            String name = permission.getName().toLowerCase(Locale.ENGLISH);
+            allNodes.add(name);
+
+            Map<String, Boolean> permissionChildren = permission.getChildren();
+            if (permissionChildren == null || permissionChildren.isEmpty()) {
+                continue;
+            }
+
+            Map<String, Boolean> lowerCased = new HashMap<>();
+            for (Map.Entry<String, Boolean> child : permissionChildren.entrySet()) {
+                String childName = child.getKey().toLowerCase(Locale.ENGLISH);
+                allNodes.add(childName);
+                lowerCased.put(childName, Boolean.TRUE.equals(child.getValue()));
+            }
+            children.put(name, Map.copyOf(lowerCased));
+        }
+
+        String[] sorted = allNodes.toArray(new String[0]);
+        Arrays.sort(sorted);
+
+        current = new WildcardExpansionIndex(current.generation + 1, sorted, Map.copyOf(children));
+        logger.fine("Rebuilt wildcard expansion index with " + sorted.length + " registered nodes");
+    }
+
+    // ===================================================================================================
+    // EXPANSION
+    // ===================================================================================================
+
+    /**
+     * Expands a wildcard node against the registry
+     * @param wildcard "*" or a node ending in ".*"
+     * @return the registered nodes it covers, empty if the node is not a wildcard
+     */
+    @NotNull
+    public PermissionSet expand(@NotNull String wildcard) {
+        if (!isWildcard(wildcard)) {
+            return PermissionSet.EMPTY;
+        }
+        return expansions.computeIfAbsent(wildcard.toLowerCase(Locale.ENGLISH), this::computeExpansion);
+    }
+
+    /**
+     * Checks if a raw node is a positive wildcard that this index can expand
+     */
+    public static boolean isWildcard(@NotNull String node) {
+        return node.equals("*") || (node.length() > 2 && node.endsWith(".*") && !node.startsWith("-"));
+    }
+
+    @NotNull
+    private PermissionSet computeExpansion(@NotNull String wildcard) {
+        PermissionSet.Builder builder = new PermissionSet.Builder();
+
+        if (wildcard.equals("*")) {
+            for (String node : nodes) {
+                builder.add(node);
+            }
+            return builder.build();
+        }
+
+        // All registered nodes below the prefix form one contiguous range of the sorted array
+        String prefix = wildcard.substring(0, wildcard.length() - 1);
+        int index = Arrays.binarySearch(nodes, prefix);
+        for (int i = index >= 0 ? index : -index - 1; i < nodes.length && nodes[i].startsWith(prefix); i++) {
+            builder.add(nodes[i]);
+        }
+
+        // Children a registered wildcard permission grants, which may live outside the prefix
+        Map<String, Boolean> wildcardChildren = children.get(wildcard);
+        if (wildcardChildren != null) {
+            wildcardChildren.forEach((child, granted) -> {
+                if (granted) {
+                    builder.add(child);
+                }
+            });
+        }
+
+        return builder.build();
+    }
+
+    // ===================================================================================================
+    // CHILDREN
+    // ===================================================================================================
+
+    /**
+     * Resolves the children of registered permissions among raw nodes, the way PermissibleBase does for
+     * attachment nodes: a child keeps its registered value under a granted parent and flips under a
+     * negated one, recursively
+     * @param permissions raw nodes, optionally prefixed with "-"
+     * @return lower-cased child nodes and their values, empty if no node has registered children
+     */
+    @NotNull
+    public Map<String, Boolean> resolveChildren(@NotNull Collection<String> permissions) {
+        if (children.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Boolean> resolved = new HashMap<>();
+        for (String permission : permissions) {
+            boolean negated = permission.startsWith("-");
+            String name = (negated ? permission.substring(1) : permission).toLowerCase(Locale.ENGLISH);
+            resolveChildren(name, !negated, resolved, new HashSet<>());
+        }
+        return resolved.isEmpty() ? Map.of() : Map.copyOf(resolved);
+    }
+
+    private void resolveChildren(@NotNull String name, boolean value, @NotNull Map<String, Boolean> resolved,
+                                 @NotNull Set<String> visited) {
+        Map<String, Boolean> permissionChildren = children.get(name);
+        if (permissionChildren == null || !visited.add(name)) {
+            return;
+        }
+        permissionChildren.forEach((child, childValue) -> {
+            boolean effective = childValue == value;
+            resolved.put(child, effective);
+            resolveChildren(child, effective, resolved, visited);
+        });
+    }
+
+    /**
+     * Gets the registry generation this index was built from, 0 before the first rebuild
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the number of registered nodes known to this index
+     */
+    public int size() {
+        return nodes.length;
+    }
+}
@@ -1,13 +1,22 @@
 package me.chickxn.permify.spigot.permissible;
 
+import me.chickxn.permify.data.permission.PermissionSet;
+import me.chickxn.permify.data.permission.PermissionSnapshot;
+import me.chickxn.permify.data.permission.PermissionTrie;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.*;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 /**
@@ -20,10 +29,11 @@ public class WildcardPermissible extends PermissibleBase {
     private final Player player;
     private final Logger logger;
 
-    // Cache for performance
-    private Set<String> cachedPermissions;
-    private long lastCacheUpdate = 0;
-    private static final long CACHE_DURATION = 1000; // 1 second cache
+    // All mutable state, published as one immutable object so every thread sees a consistent view
+    private final AtomicReference<State> state = new AtomicReference<>(State.INITIAL);
+
+    // Children of registered permissions among Permify's nodes, resolved once per snapshot and registry generation
+    private final AtomicReference<ResolvedChildren> permifyChildren = new AtomicReference<>();
 
     /**
      * Creates a new WildcardPermissible for the specified player
@@ -42,26 +52,26 @@ public class WildcardPermissible extends PermissibleBase {
     @Override
     public boolean hasPermission(@NotNull String permission) {
         try {
-            Set<String> effectivePermissions = getAllEffectivePermissions();
-
-            // Check for explicit denial first (highest priority)
-            if (isDenied(permission, effectivePermissions)) {
-                return false;
-            }
-
-            // Check for explicit permission
-            if (effectivePermissions.contains(permission)) {
-                return true;
+            State current = getState();
+
+            // Permify's snapshot decides first in attachment-free mode
+            if (current.permify != null) {
+                PermissionTrie.Result permifyResult = current.permify.check(permission);
+                if (permifyResult != PermissionTrie.Result.UNDEFINED) {
+                    return permifyResult.asBoolean();
+                }
+
+                // Children of registered permissions, which Bukkit would expand from an attachment
+                Boolean child = getPermifyChildren(current.permify).get(permission.toLowerCase(Locale.ENGLISH));
+                if (child != null) {
+                    return child;
+                }
             }
 
-            // Check for universal wildcard
-            if (effectivePermissions.contains("*")) {
-                return true;
-            }
-
-            // Check wildcard patterns
-            if (matchesWildcard(permission, effectivePermissions)) {
-                return true;
+            // Attachments (from other plugins only in attachment-free mode)
+            PermissionTrie.Result result = current.attachments.check(permission);
+            if (result != PermissionTrie.Result.UNDEFINED) {
+                return result.asBoolean();
             }
 
             // Fall back to Bukkit's default behavior for built-in permissions
@@ -95,20 +105,13 @@ public class WildcardPermissible extends PermissibleBase {
     @Override
     public boolean isPermissionSet(@NotNull String permission) {
         try {
-            Set<String> effectivePermissions = getAllEffectivePermissions();
-
-            // Check if explicitly set (positive or negative)
-            if (effectivePermissions.contains(permission) || effectivePermissions.contains("-" + permission)) {
+            // Explicitly set (positive or negative) or covered by a wildcard
+            State current = getState();
+            if (current.permify != null && (current.permify.isPermissionSet(permission)
+                    || getPermifyChildren(current.permify).containsKey(permission.toLowerCase(Locale.ENGLISH)))) {
                 return true;
             }
-
-            // Check if covered by wildcard
-            if (effectivePermissions.contains("*")) {
-                return true;
-            }
-
-            // Check if covered by wildcard patterns
-            if (matchesWildcard(permission, effectivePermissions) || isDenied(permission, effectivePermissions)) {
+            if (current.attachments.isPermissionSet(permission)) {
                 return true;
             }
 
@@ -177,219 +180,132 @@ public class WildcardPermissible extends PermissibleBase {
     public @NotNull Set<PermissionAttachmentInfo> getEffectivePermissions() {
         // Return the super implementation to maintain compatibility with tab completion
         // This ensures that Minecraft's tab completion system gets the raw permission data
-        return super.getEffectivePermissions();
+        Set<PermissionAttachmentInfo> effective = super.getEffectivePermissions();
+
+        PermissionSnapshot permify = state.get().permify;
+        if (permify == null || permify.getPermissions().isEmpty()) {
+            return effective;
+        }
+
+        // In attachment-free mode, report Permify's nodes as well; they take precedence over attachments
+        Map<String, PermissionAttachmentInfo> merged = new LinkedHashMap<>();
+        for (PermissionAttachmentInfo info : effective) {
+            merged.put(info.getPermission(), info);
+        }
+        getPermifyChildren(permify).forEach((name, value) -> merged.put(name, new PermissionAttachmentInfo(this, name, null, value)));
+        for (String node : permify.getPermissions()) {
+            boolean negative = node.startsWith("-");
+            String name = (negative ? node.substring(1) : node).toLowerCase(Locale.ENGLISH);
+            merged.put(name, new PermissionAttachmentInfo(this, name, null, !negative));
+        }
+        return new HashSet<>(merged.values());
     }
 
     // ===================================================================================================
-    // WILDCARD PERMISSION LOGIC
+    // ATTACHMENT-FREE MODE
     // ===================================================================================================
 
     /**
-     * Checks if a permission matches any wildcard patterns in the effective permissions
-     * @param permission the permission to check
-     * @param effectivePermissions the set of effective permissions to check against
-     * @return true if the permission matches a wildcard pattern
+     * Publishes Permify's snapshot to be answered directly, without a PermissionAttachment.
+     * A snapshot older than the published one is ignored, so a rebuild finishing late cannot roll back a newer one.
+     * @param snapshot the snapshot, or null to go back to attachment based resolution
+     * @return the previously published snapshot, or the newer one that stays published
      */
-    private boolean matchesWildcard(@NotNull String permission, @NotNull Set<String> effectivePermissions) {
-        String[] parts = permission.split("\\.");
-        StringBuilder checkPerm = new StringBuilder();
-
-        for (int i = 0; i < parts.length; i++) {
-            if (i > 0) {
-                checkPerm.append(".");
-            }
-            checkPerm.append(parts[i]);
-
-            String wildcard = checkPerm + ".*";
-
-            // Check for explicit denial of this wildcard level
-            if (effectivePermissions.contains("-" + wildcard)) {
-                return false;
+    public @Nullable PermissionSnapshot setPermifySnapshot(@Nullable PermissionSnapshot snapshot) {
+        while (true) {
+            State current = state.get();
+            State updated = current.withPermify(snapshot);
+            if (updated == current || state.compareAndSet(current, updated)) {
+                return current.permify;
             }
+        }
+    }
 
-            // Check for positive wildcard match
-            if (effectivePermissions.contains(wildcard)) {
-                return true;
-            }
+    /**
+     * Gets the children registered permissions add for a Permify snapshot. Explicit nodes of the snapshot
+     * are checked first, so a child only decides permissions the snapshot does not cover itself.
+     */
+    private @NotNull Map<String, Boolean> getPermifyChildren(@NotNull PermissionSnapshot permify) {
+        WildcardExpansionIndex expansionIndex = WildcardExpansionIndex.get();
+        ResolvedChildren cached = permifyChildren.get();
+        if (cached != null && cached.snapshot() == permify && cached.generation() == expansionIndex.getGeneration()) {
+            return cached.children();
         }
 
-        return false;
+        ResolvedChildren resolved = new ResolvedChildren(permify, expansionIndex.getGeneration(),
+                expansionIndex.resolveChildren(permify.getPermissions()));
+        permifyChildren.set(resolved);
+        return resolved.children();
+    }
+
+    /**
+     * Gets the snapshot published in attachment-free mode
+     * @return the snapshot, or null if permissions come through an attachment
+     */
+    public @Nullable PermissionSnapshot getPermifySnapshot() {
+        return state.get().permify;
     }
 
+    // ===================================================================================================
+    // WILDCARD PERMISSION LOGIC
+    // ===================================================================================================
+
     /**
-     * Checks if a permission is explicitly denied
-     * @param permission the permission to check
-     * @param effectivePermissions the set of effective permissions to check against
-     * @return true if the permission is denied
+     * Gets a consistent view of the current state, rebuilding the attachment snapshot if it has been
+     * marked dirty or the registry changed. Lock-free: a rebuild is published with a compare-and-set
+     * and discarded if something marked the state dirty in the meantime.
+     * @return a state whose attachment snapshot is present
      */
-    private boolean isDenied(@NotNull String permission, @NotNull Set<String> effectivePermissions) {
-        // Check explicit denial
-        if (effectivePermissions.contains("-" + permission)) {
-            return true;
+    private @NotNull State getState() {
+        State current = state.get();
+        WildcardExpansionIndex expansionIndex = WildcardExpansionIndex.get();
+        if (current.attachments != null && current.expansionGeneration == expansionIndex.getGeneration()) {
+            return current;
         }
 
-        // Check wildcard denials
-        String[] parts = permission.split("\\.");
-        StringBuilder checkPerm = new StringBuilder();
+        PermissionSnapshot built = new PermissionSnapshot(current.modifications, buildEffectivePermissions(expansionIndex));
+        State rebuilt = current.withAttachments(built, expansionIndex.getGeneration());
 
-        for (int i = 0; i < parts.length; i++) {
-            if (i > 0) {
-                checkPerm.append(".");
+        while (true) {
+            if (state.compareAndSet(current, rebuilt)) {
+                return rebuilt;
             }
-            checkPerm.append(parts[i]);
 
-            // Check for denial at this level
-            if (effectivePermissions.contains("-" + checkPerm.toString()) ||
-                    effectivePermissions.contains("-" + checkPerm + ".*")) {
-                return true;
+            State latest = state.get();
+            if (latest.modifications != current.modifications) {
+                // Marked dirty while building: answer this call with what we built, but don't publish it
+                return latest.withAttachments(built, rebuilt.expansionGeneration);
             }
-        }
 
-        return false;
+            // Only the Permify snapshot changed, publish on top of it
+            current = latest;
+            rebuilt = latest.withAttachments(built, rebuilt.expansionGeneration);
+        }
     }
 
     /**
-     * Gets all effective permissions for this player, including wildcard expansions
-     * This method uses caching for performance
+     * Collects all effective permissions for this player from Bukkit's attachment system
      * @return a set of all effective permissions
      */
-    private @NotNull Set<String> getAllEffectivePermissions() {
-        long currentTime = System.currentTimeMillis();
-        if (cachedPermissions != null && (currentTime - lastCacheUpdate) < CACHE_DURATION) {
-            return cachedPermissions;
-        }
+    private @NotNull PermissionSet buildEffectivePermissions(@NotNull WildcardExpansionIndex expansionIndex) {
+        PermissionSet.Builder builder = new PermissionSet.Builder();
+        List<String> wildcards = new ArrayList<>();
 
-        Set<String> permissions = new HashSet<>();
-
-        // Get permissions from Bukkit's attachment system
         for (PermissionAttachmentInfo info : super.getEffectivePermissions()) {
             String permissionName = info.getPermission();
-            permissions.add(info.getValue() ? permissionName : "-" + permissionName);
-        }
+            builder.add(info.getValue() ? permissionName : "-" + permissionName);
 
-        // Handle universal wildcard expansion
-        if (permissions.contains("*")) {
-            addCommonWildcards(permissions);
+            if (info.getValue() && WildcardExpansionIndex.isWildcard(permissionName)) {
+                wildcards.add(permissionName);
+            }
         }
 
-        cachedPermissions = permissions;
-        lastCacheUpdate = currentTime;
-
-        return permissions;
-    }
-
-    /**
-     * Adds common wildcard expansions for better tab completion support
-     * This is called when the player has the universal wildcard (*)
-     * @param permissions the permission set to add wildcards to
-     */
-    private void addCommonWildcards(@NotNull Set<String> permissions) {
-        // Add common wildcard expansions for better tab completion
-        permissions.add("minecraft.command.*");
-        permissions.add("bukkit.command.*");
-        permissions.add("spigot.command.*");
-        permissions.add("paper.command.*");
-
-        // Essential Minecraft commands for tab completion
-        String[] essentialCommands = {
-                // Basic commands that players should always be able to tab-complete
-                "minecraft.command.help",
-                "minecraft.command.me",
-                "minecraft.command.tell",
-                "minecraft.command.msg",
-                "minecraft.command.say",
-                "minecraft.command.list",
-
-                // Admin commands (for tab completion when they have *)
-                "minecraft.command.give",
-                "minecraft.command.teleport",
-                "minecraft.command.tp",
-                "minecraft.command.gamemode",
-                "minecraft.command.time",
-                "minecraft.command.weather",
-                "minecraft.command.worldborder",
-                "minecraft.command.fill",
-                "minecraft.command.setblock",
-                "minecraft.command.summon",
-                "minecraft.command.kill",
-                "minecraft.command.clear",
-                "minecraft.command.effect",
-                "minecraft.command.enchant",
-                "minecraft.command.experience",
-                "minecraft.command.xp",
-                "minecraft.command.particle",
-                "minecraft.command.playsound",
-                "minecraft.command.stopsound",
-                "minecraft.command.title",
-                "minecraft.command.tellraw",
-                "minecraft.command.difficulty",
-                "minecraft.command.gamerule",
-                "minecraft.command.defaultgamemode",
-                "minecraft.command.seed",
-                "minecraft.command.setworldspawn",
-                "minecraft.command.spawnpoint",
-                "minecraft.command.spreadplayers",
-                "minecraft.command.scoreboard",
-                "minecraft.command.team",
-                "minecraft.command.trigger",
-                "minecraft.command.advancement",
-                "minecraft.command.bossbar",
-                "minecraft.command.data",
-                "minecraft.command.datapack",
-                "minecraft.command.debug",
-                "minecraft.command.execute",
-                "minecraft.command.forceload",
-                "minecraft.command.function",
-                "minecraft.command.locate",
-                "minecraft.command.loot",
-                "minecraft.command.recipe",
-                "minecraft.command.reload",
-                "minecraft.command.save-all",
-                "minecraft.command.save-off",
-                "minecraft.command.save-on",
-                "minecraft.command.schedule",
-                "minecraft.command.spectate",
-                "minecraft.command.tag",
-                "minecraft.command.team",
-                "minecraft.command.teammsg",
-                "minecraft.command.tm",
-                "minecraft.command.w",
-                "minecraft.command.worldborder",
-
-                // Bukkit commands
-                "bukkit.command.help",
-                "bukkit.command.plugins",
-                "bukkit.command.pl",
-                "bukkit.command.version",
-                "bukkit.command.ver",
-                "bukkit.command.reload",
-                "bukkit.command.rl",
-                "bukkit.command.stop",
-                "bukkit.command.restart",
-                "bukkit.command.timings",
-                "bukkit.command.tps",
-
-                // Server commands
-                "server.command.op",
-                "server.command.deop",
-                "server.command.whitelist",
-                "server.command.ban",
-                "server.command.ban-ip",
-                "server.command.pardon",
-                "server.command.pardon-ip",
-                "server.command.kick",
-
-                // Essential for tab completion functionality
-                "bukkit.command.tabcomplete",
-
-                // Paper specific commands (if available)
-                "bukkit.command.paper",
-                "bukkit.command.mspt"
-        };
-
-        for (String perm : essentialCommands) {
-            permissions.add(perm);
+        // Expand granted wildcards against the server's permission registry (shared, computed once)
+        for (String wildcard : wildcards) {
+            builder.addAll(expansionIndex.expand(wildcard));
         }
+
+        return builder.build();
     }
 
     // ===================================================================================================
@@ -397,11 +313,14 @@ public class WildcardPermissible extends PermissibleBase {
     // ===================================================================================================
 
     /**
-     * Clears the permission cache, forcing a refresh on next access
+     * Marks the permission snapshot dirty, forcing a rebuild on next access
      */
     public void clearCache() {
-        cachedPermissions = null;
-        lastCacheUpdate = 0;
+        // Called from PermissibleBase's constructor before our fields are assigned
+        if (state == null) {
+            return;
+        }
+        state.updateAndGet(State::dirty);
     }
 
     /**
@@ -421,12 +340,14 @@ public class WildcardPermissible extends PermissibleBase {
      * @return a string containing debug information
      */
     public @NotNull String getDebugInfo() {
-        Set<String> perms = getAllEffectivePermissions();
-        return String.format("WildcardPermissible[player=%s, permissions=%d, cached=%s, cacheAge=%dms]",
+        PermissionSnapshot cached = state.get().attachments;
+        PermissionSnapshot current = cached != null ? cached : getState().attachments;
+        return String.format("WildcardPermissible[player=%s, permissions=%d, version=%d, cached=%s, cacheAge=%dms]",
                 player.getName(),
-                perms.size(),
-                cachedPermissions != null,
-                cachedPermissions != null ? (System.currentTimeMillis() - lastCacheUpdate) : 0);
+                current.getPermissions().size(),
+                current.getVersion(),
+                cached != null,
+                current.getAge());
     }
 
     /**
@@ -439,11 +360,10 @@ public class WildcardPermissible extends PermissibleBase {
 
     /**
      * Checks if the permission cache is currently valid
-     * @return true if the cache is valid and can be used
+     * @return true if a snapshot is built and nothing has marked it dirty since
      */
     public boolean isCacheValid() {
-        return cachedPermissions != null &&
-                (System.currentTimeMillis() - lastCacheUpdate) < CACHE_DURATION;
+        return state.get().attachments != null;
     }
 
     /**
@@ -451,18 +371,17 @@ public class WildcardPermissible extends PermissibleBase {
      * @return the number of cached permissions, or 0 if cache is invalid
      */
     public int getCacheSize() {
-        return cachedPermissions != null ? cachedPermissions.size() : 0;
+        PermissionSnapshot current = state.get().attachments;
+        return current != null ? current.getPermissions().size() : 0;
     }
 
     /**
-     * Gets a copy of the currently cached permissions
-     * @return a set of cached permissions, or empty set if cache is invalid
+     * Gets the currently cached permissions
+     * @return an immutable set of cached permissions, or empty set if cache is invalid
      */
     public @NotNull Set<String> getCachedPermissions() {
-        if (isCacheValid()) {
-            return new HashSet<>(cachedPermissions);
-        }
-        return new HashSet<>();
+        PermissionSnapshot current = state.get().attachments;
+        return current != null ? current.getPermissions() : PermissionSet.EMPTY;
     }
 
     @Override
@@ -472,4 +391,54 @@ public class WildcardPermissible extends PermissibleBase {
                 getEffectivePermissions().size(),
                 isCacheValid());
     }
-}
\ No newline at end of file
+
+    // ===================================================================================================
+    // STATE
+    // ===================================================================================================
+
+    private record ResolvedChildren(@NotNull PermissionSnapshot snapshot, long generation, @NotNull Map<String, Boolean> children) {
+    }
+
+    /**
+     * Immutable state of this permissible; every change publishes a new instance
+     */
+    private static final class State {
+
+        private static final State INITIAL = new State(null, 0L, 0L, null);
+
+        // Snapshot of attachment permissions, null when dirty
+        private final PermissionSnapshot attachments;
+        // Incremented on every change that makes the attachment snapshot dirty
+        private final long modifications;
+        // Registry generation the attachment snapshot was expanded with
+        private final long expansionGeneration;
+        // Permify's own snapshot in attachment-free mode, null while permissions come through an attachment
+        private final PermissionSnapshot permify;
+
+        private State(@Nullable PermissionSnapshot attachments, long modifications, long expansionGeneration,
+                      @Nullable PermissionSnapshot permify) {
+            this.attachments = attachments;
+            this.modifications = modifications;
+            this.expansionGeneration = expansionGeneration;
+            this.permify = permify;
+        }
+
+        private @NotNull State dirty() {
+            return new State(null, modifications + 1, expansionGeneration, permify);
+        }
+
+        private @NotNull State withAttachments(@NotNull PermissionSnapshot snapshot, long generation) {
+            return new State(snapshot, modifications, generation, permify);
+        }
+
+        /**
+         * @return this state if the snapshot is not newer than the published one
+         */
+        private @NotNull State withPermify(@Nullable PermissionSnapshot snapshot) {
+            if (snapshot != null && permify != null && snapshot.getVersion() <= permify.getVersion()) {
+                return this;
+            }
+            return new State(attachments, modifications, expansionGeneration, snapshot);
+        }
+    }
+}
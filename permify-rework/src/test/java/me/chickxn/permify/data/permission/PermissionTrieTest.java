@@ -0,0 +1,129 @@
+package me.chickxn.permify.data.permission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionTrieTest {
+
+    // ===================================================================================================
+    // GRANTS
+    // ===================================================================================================
+
+    @Test
+    void exactNodeGrantsOnlyItself() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("essentials.fly"));
+
+        assertEquals(PermissionTrie.Result.TRUE, trie.check("essentials.fly"));
+        assertEquals(PermissionTrie.Result.UNDEFINED, trie.check("essentials.fly.others"));
+        assertEquals(PermissionTrie.Result.UNDEFINED, trie.check("essentials"));
+        assertEquals(PermissionTrie.Result.UNDEFINED, trie.check("essentials.speed"));
+    }
+
+    @Test
+    void wildcardGrantsEveryChild() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("essentials.*"));
+
+        assertTrue(trie.hasPermission("essentials.fly"));
+        assertTrue(trie.hasPermission("essentials.fly.others"));
+        assertFalse(trie.isPermissionSet("worldedit.wand"));
+    }
+
+    @Test
+    void universalWildcardGrantsEverything() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("*"));
+
+        assertTrue(trie.hasUniversalWildcard());
+        assertTrue(trie.hasPermission("any.node.at.all"));
+    }
+
+    // ===================================================================================================
+    // DENY PRECEDENCE
+    // ===================================================================================================
+
+    @Test
+    void negatedNodeBeatsWildcardGrant() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("essentials.*", "-essentials.fly"));
+
+        assertEquals(PermissionTrie.Result.FALSE, trie.check("essentials.fly"));
+        assertEquals(PermissionTrie.Result.TRUE, trie.check("essentials.speed"));
+    }
+
+    @Test
+    void negatedWildcardBeatsExactGrant() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("essentials.fly", "-essentials.*"));
+
+        assertEquals(PermissionTrie.Result.FALSE, trie.check("essentials.fly"));
+    }
+
+    @Test
+    void negatedPrefixDeniesItsChildren() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("essentials.fly.others", "-essentials"));
+
+        assertEquals(PermissionTrie.Result.FALSE, trie.check("essentials.fly.others"));
+    }
+
+    @Test
+    void denyBeatsUniversalWildcard() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("*", "-worldedit.*"));
+
+        assertEquals(PermissionTrie.Result.FALSE, trie.check("worldedit.wand"));
+        assertEquals(PermissionTrie.Result.TRUE, trie.check("essentials.fly"));
+    }
+
+    @Test
+    void negatedUniversalWildcardIsIgnored() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("-*", "essentials.fly"));
+
+        assertFalse(trie.hasUniversalWildcard());
+        assertEquals(PermissionTrie.Result.TRUE, trie.check("essentials.fly"));
+        assertEquals(PermissionTrie.Result.UNDEFINED, trie.check("worldedit.wand"));
+    }
+
+    @Test
+    void orderOfNodesDoesNotMatter() {
+        PermissionTrie denyFirst = PermissionTrie.compile(List.of("-essentials.fly", "essentials.*"));
+        PermissionTrie grantFirst = PermissionTrie.compile(List.of("essentials.*", "-essentials.fly"));
+
+        assertEquals(denyFirst.check("essentials.fly"), grantFirst.check("essentials.fly"));
+        assertEquals(denyFirst.check("essentials.speed"), grantFirst.check("essentials.speed"));
+    }
+
+    // ===================================================================================================
+    // CASE FOLDING
+    // ===================================================================================================
+
+    @Test
+    void lookupsIgnoreCase() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("Essentials.Fly", "-WORLDEDIT.*"));
+
+        assertTrue(trie.hasPermission("essentials.fly"));
+        assertTrue(trie.hasPermission("ESSENTIALS.FLY"));
+        assertEquals(PermissionTrie.Result.FALSE, trie.check("worldedit.Wand"));
+    }
+
+    @Test
+    void nonAsciiSegmentsFoldLikeAscii() {
+        PermissionTrie trie = PermissionTrie.compile(List.of("shop.Ärger.ÖL"));
+
+        assertTrue(trie.hasPermission("SHOP.ärger.öl"));
+        assertTrue(trie.hasPermission("shop.ÄRGER.Öl"));
+    }
+
+    @Test
+    void manySiblingsStayReachable() {
+        PermissionTrie.Builder builder = new PermissionTrie.Builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add("plugin.node" + i);
+        }
+        PermissionTrie trie = builder.build();
+
+        assertEquals(500, trie.size());
+        for (int i = 0; i < 500; i++) {
+            assertTrue(trie.hasPermission("plugin.NODE" + i));
+        }
+        assertFalse(trie.isPermissionSet("plugin.node500"));
+    }
+}
@@ -0,0 +1,59 @@
+package me.chickxn.permify;
+
+/**
+ * Modification version of a stored entity.
+ * Every change bumps the version; a save captures the version before copying the entity and
+ * acknowledges it once the copy is on disk, so a change made during the save stays unsaved
+ * instead of being cleared with it.
+ */
+class EntityVersion {
+
+    private long version;
+    private long persisted;
+    private long dirtySince;
+
+    /**
+     * Records a change
+     * @return the new version
+     */
+    synchronized long bump() {
+        if (version == persisted) {
+            dirtySince = System.currentTimeMillis();
+        }
+        return ++version;
+    }
+
+    synchronized long current() {
+        return version;
+    }
+
+    /**
+     * Records that the entity as of a version is on disk
+     */
+    synchronized void acknowledge(long savedVersion) {
+        if (savedVersion > persisted) {
+            persisted = Math.min(savedVersion, version);
+        }
+        if (persisted == version) {
+            dirtySince = 0L;
+        }
+    }
+
+    synchronized boolean isDirty() {
+        return version != persisted;
+    }
+
+    /**
+     * Gets the number of changes not yet on disk
+     */
+    synchronized long getLag() {
+        return version - persisted;
+    }
+
+    /**
+     * Gets when the oldest unsaved change was made, 0 if there is none
+     */
+    synchronized long getDirtySince() {
+        return dirtySince;
+    }
+}
@@ -0,0 +1,104 @@
+package me.chickxn.permify;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Immutable point-in-time view of every group, by lower-case name and by id.
+ * {@link JsonStorage} publishes a new catalog through a volatile field on each change to the set of
+ * groups, so readers take one read and get a consistent view without any lock, and writers never wait
+ * for readers. A change copies the two maps, which is cheap for the few hundred groups a server has.
+ */
+final class GroupCatalog {
+
+    static final GroupCatalog EMPTY = new GroupCatalog(Map.of(), Map.of(), 0L);
+
+    private final Map<String, JsonGroupImpl> byName;
+    private final Map<Integer, JsonGroupImpl> byId;
+    private final long version;
+
+    private GroupCatalog(@NotNull Map<String, JsonGroupImpl> byName, @NotNull Map<Integer, JsonGroupImpl> byId, long version) {
+        this.byName = byName;
+        this.byId = byId;
+        this.version = version;
+    }
+
+    // ===================================================================================================
+    // READS
+    // ===================================================================================================
+
+    @Nullable
+    JsonGroupImpl get(@NotNull String name) {
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    @Nullable
+    JsonGroupImpl get(int id) {
+        return byId.get(id);
+    }
+
+    @NotNull
+    Collection<JsonGroupImpl> groups() {
+        return byName.values();
+    }
+
+    int size() {
+        return byName.size();
+    }
+
+    boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    /**
+     * Gets the number of changes this catalog is the result of
+     */
+    long getVersion() {
+        return version;
+    }
+
+    // ===================================================================================================
+    // CHANGES
+    // ===================================================================================================
+
+    /**
+     * Creates a catalog with groups added or replaced
+     */
+    @NotNull
+    GroupCatalog with(@NotNull Collection<JsonGroupImpl> groups) {
+        if (groups.isEmpty()) {
+            return this;
+        }
+        Map<String, JsonGroupImpl> names = new HashMap<>(byName);
+        Map<Integer, JsonGroupImpl> ids = new HashMap<>(byId);
+        for (JsonGroupImpl group : groups) {
+            names.put(group.getName().toLowerCase(Locale.ROOT), group);
+            ids.put(group.getId(), group);
+        }
+        return new GroupCatalog(Collections.unmodifiableMap(names), Collections.unmodifiableMap(ids), version + 1);
+    }
+
+    @NotNull
+    GroupCatalog with(@NotNull JsonGroupImpl group) {
+        return with(List.of(group));
+    }
+
+    /**
+     * Creates a catalog without a group
+     * @return this catalog if the group is not part of it
+     */
+    @NotNull
+    GroupCatalog without(@NotNull String name, int id) {
+        String key = name.toLowerCase(Locale.ROOT);
+        if (!byName.containsKey(key) && !byId.containsKey(id)) {
+            return this;
+        }
+        Map<String, JsonGroupImpl> names = new HashMap<>(byName);
+        Map<Integer, JsonGroupImpl> ids = new HashMap<>(byId);
+        names.remove(key);
+        ids.remove(id);
+        return new GroupCatalog(Collections.unmodifiableMap(names), Collections.unmodifiableMap(ids), version + 1);
+    }
+}
@@ -0,0 +1,428 @@
+package me.chickxn.permify;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Append-only write-ahead journal for {@link JsonStorage}.
+ * Changed entities are queued by key and written by one thread as single-line records, so several
+ * changes to the same player in one commit window cost one record, and every batch is made durable
+ * with one fsync (group commit). The journal is split into segments: a snapshot save rotates to a
+ * new segment first and deletes the sealed ones once the snapshot is on disk.
+ */
+class JsonJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final Gson gson;
+    private final Logger logger;
+    private final long commitDelayMillis;
+
+    // Resolve the current state of a queued entity when its record is written
+    private final Function<UUID, JsonStorage.JsonPlayerData> players;
+    private final IntFunction<JsonStorage.JsonGroupData> groups;
+
+    // Entities changed since the last commit, in order of their first change
+    private final Object pendingLock = new Object();
+    private Map<String, Pending> pending = new LinkedHashMap<>();
+
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private FileChannel channel;
+    private long segment;
+    // Set by close, guarded by the segment lock
+    private boolean closed;
+
+    private Thread writer;
+    private volatile boolean running;
+    private long committedRecords;
+
+    /**
+     * @param directory the directory holding the journal segments
+     * @param gson a compact (not pretty-printing) Gson, records must fit on one line
+     * @param commitDelayMillis how long to gather changes before a commit
+     * @param players resolves a player's current data, null if it is no longer loaded
+     * @param groups resolves a group's current data by id, null if it no longer exists
+     */
+    JsonJournal(@NotNull Path directory, @NotNull Gson gson, @NotNull Logger logger, long commitDelayMillis,
+                @NotNull Function<UUID, JsonStorage.JsonPlayerData> players,
+                @NotNull IntFunction<JsonStorage.JsonGroupData> groups) {
+        this.directory = directory;
+        this.gson = gson;
+        this.logger = logger;
+        this.commitDelayMillis = Math.max(0L, commitDelayMillis);
+        this.players = players;
+        this.groups = groups;
+    }
+
+    // ===================================================================================================
+    // LIFECYCLE
+    // ===================================================================================================
+
+    /**
+     * Opens a new segment after the existing ones and starts the commit thread
+     */
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> existing = listSegments();
+        segment = existing.isEmpty() ? 1 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+        channel = openSegment(segment);
+
+        running = true;
+        writer = new Thread(this::runWriter, "Permify-Journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Commits everything still queued and closes the journal
+     */
+    void close() {
+        running = false;
+        synchronized (pendingLock) {
+            pendingLock.notifyAll();
+        }
+        if (writer != null) {
+            try {
+                writer.join(5000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Whatever the writer did not get to
+        commit();
+
+        segmentLock.lock();
+        try {
+            closed = true;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to close journal: " + e.getMessage());
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    // ===================================================================================================
+    // RECORDING
+    // ===================================================================================================
+
+    void recordPlayer(@NotNull UUID uuid) {
+        enqueue("player:" + uuid, new Pending(Type.PLAYER, uuid, 0));
+    }
+
+    void recordPlayerDeleted(@NotNull UUID uuid) {
+        enqueue("player:" + uuid, new Pending(Type.PLAYER_DELETED, uuid, 0));
+    }
+
+    void recordGroup(int id) {
+        enqueue("group:" + id, new Pending(Type.GROUP, null, id));
+    }
+
+    void recordGroupDeleted(int id) {
+        enqueue("group:" + id, new Pending(Type.GROUP_DELETED, null, id));
+    }
+
+    private void enqueue(@NotNull String key, @NotNull Pending change) {
+        if (!running) {
+            return;
+        }
+        synchronized (pendingLock) {
+            // Keep the position of the first change, the record always carries the latest state
+            pending.put(key, change);
+            pendingLock.notifyAll();
+        }
+    }
+
+    // ===================================================================================================
+    // COMMIT
+    // ===================================================================================================
+
+    private void runWriter() {
+        while (running) {
+            try {
+                synchronized (pendingLock) {
+                    while (running && pending.isEmpty()) {
+                        pendingLock.wait();
+                    }
+                }
+                // Let concurrent changes join this commit
+                if (commitDelayMillis > 0) {
+                    Thread.sleep(commitDelayMillis);
+                }
+                commit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.severe("Journal commit failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Writes every queued change and forces it to disk with a single fsync
+     */
+    private void commit() {
+        Map<String, Pending> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        StringBuilder lines = new StringBuilder();
+        int records = 0;
+        for (Pending change : batch.values()) {
+            Record record = change.resolve();
+            if (record != null) {
+                lines.append(gson.toJson(record)).append('\n');
+                records++;
+            }
+        }
+        if (records == 0) {
+            return;
+        }
+
+        segmentLock.lock();
+        try {
+            if (channel == null) {
+                logger.warning("Journal is closed, dropped " + records + " records");
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            committedRecords += records;
+        } catch (IOException e) {
+            logger.severe("Failed to append to journal: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    // ===================================================================================================
+    // SEGMENTS
+    // ===================================================================================================
+
+    /**
+     * Starts a new segment, called right before a snapshot save.
+     * Once the journal is closed no segment is opened and every existing one counts as sealed.
+     * @return the sealed segments, safe to delete once the snapshot is written
+     */
+    @NotNull
+    List<Path> rotate() throws IOException {
+        segmentLock.lock();
+        try {
+            List<Path> sealed = listSegments();
+            if (closed) {
+                return sealed;
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            segment++;
+            channel = openSegment(segment);
+            return sealed;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes segments whose changes are contained in a snapshot
+     */
+    void deleteSegments(@NotNull List<Path> segments) {
+        for (Path path : segments) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warning("Failed to delete journal segment " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    long getCommittedRecords() {
+        return committedRecords;
+    }
+
+    int getPendingCount() {
+        synchronized (pendingLock) {
+            return pending.size();
+        }
+    }
+
+    @NotNull
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @NotNull
+    private List<Path> listSegments() throws IOException {
+        return listSegments(directory);
+    }
+
+    @NotNull
+    private static List<Path> listSegments(@NotNull Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (var files = Files.list(directory)) {
+            files.filter(file -> segmentNumber(file) >= 0).forEach(segments::add);
+        }
+        segments.sort(Comparator.comparingLong(JsonJournal::segmentNumber));
+        return segments;
+    }
+
+    private static long segmentNumber(@NotNull Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ===================================================================================================
+    // REPLAY
+    // ===================================================================================================
+
+    /**
+     * Replays every segment in order, stopping at a torn last record of a segment
+     * @param directory the journal directory
+     * @param apply receives each record
+     * @return the replayed segments, to delete once their changes are in a snapshot
+     */
+    @NotNull
+    static List<Path> replay(@NotNull Path directory, @NotNull Gson gson, @NotNull Logger logger,
+                             @NotNull Consumer<Record> apply) throws IOException {
+        List<Path> segments = listSegments(directory);
+        int replayed = 0;
+
+        for (Path path : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Record record;
+                    try {
+                        record = gson.fromJson(line, Record.class);
+                    } catch (JsonParseException e) {
+                        logger.warning("Ignoring torn journal record in " + path.getFileName());
+                        break;
+                    }
+                    if (record != null && record.type != null) {
+                        apply.accept(record);
+                        replayed++;
+                    }
+                }
+            }
+        }
+
+        if (replayed > 0) {
+            logger.info("Replayed " + replayed + " journal records from " + segments.size() + " segments");
+        }
+        return segments;
+    }
+
+    // ===================================================================================================
+    // RECORDS
+    // ===================================================================================================
+
+    enum Type {
+        PLAYER,
+        PLAYER_DELETED,
+        GROUP,
+        GROUP_DELETED,
+        // Every group at once, only written by earlier versions and still replayed
+        GROUPS
+    }
+
+    /**
+     * One journal line; upserts carry the entity's full state so replay is idempotent
+     */
+    static class Record {
+        Type type;
+        UUID uuid;
+        JsonStorage.JsonPlayerData player;
+        Integer groupId;
+        JsonStorage.JsonGroupData group;
+        List<JsonStorage.JsonGroupData> groups;
+    }
+
+    private final class Pending {
+
+        private final Type type;
+        private final UUID uuid;
+        private final int groupId;
+
+        private Pending(@NotNull Type type, @Nullable UUID uuid, int groupId) {
+            this.type = type;
+            this.uuid = uuid;
+            this.groupId = groupId;
+        }
+
+        @Nullable
+        private Record resolve() {
+            Record record = new Record();
+            record.type = type;
+            record.uuid = uuid;
+            switch (type) {
+                case PLAYER -> {
+                    // Not loaded anymore: it was deleted or evicted, and eviction writes its file
+                    record.player = players.apply(uuid);
+                    if (record.player == null) {
+                        return null;
+                    }
+                }
+                case GROUP -> {
+                    record.groupId = groupId;
+                    // Deleted in the meantime, its deletion is queued under the same key
+                    record.group = groups.apply(groupId);
+                    if (record.group == null) {
+                        return null;
+                    }
+                }
+                case GROUP_DELETED -> record.groupId = groupId;
+                default -> {
+                }
+            }
+            return record;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package me.chickxn.permify;
+
+import me.chickxn.permify.data.permission.ExpiryScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded cache of loaded players.
+ * Reads are lock-free and only stamp an access tick; once the cache grows past its capacity the
+ * least recently used entries are evicted in one batch down to a low-water mark, on a background
+ * thread so no caller waits for the writes. Pinned entries (online players) are never evicted, so
+ * the cache may temporarily exceed its capacity.
+ */
+class JsonPlayerCache {
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    private final int capacity;
+    private final Predicate<JsonPlayerImpl> pinned;
+    private final Function<UUID, Lock> locks;
+    private final Predicate<JsonPlayerImpl> onEvict;
+    private final ExecutorService evictor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Permify-PlayerEvictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param capacity the number of players to keep before evicting
+     * @param pinned players that must stay loaded
+     * @param locks the lock of a player, held while it is written and removed
+     * @param onEvict called for every player before it is removed to write it to disk, a player it fails for stays cached
+     */
+    JsonPlayerCache(int capacity, @NotNull Predicate<JsonPlayerImpl> pinned, @NotNull Function<UUID, Lock> locks,
+                    @NotNull Predicate<JsonPlayerImpl> onEvict) {
+        this.capacity = Math.max(1, capacity);
+        this.pinned = pinned;
+        this.locks = locks;
+        this.onEvict = onEvict;
+    }
+
+    // ===================================================================================================
+    // ACCESS
+    // ===================================================================================================
+
+    @Nullable
+    JsonPlayerImpl get(@NotNull UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        return entry.player;
+    }
+
+    /**
+     * Gets a player, loading it once if absent; concurrent callers for the same UUID share one load
+     * @param loader reads the player from disk, may return null if there is no record
+     */
+    @Nullable
+    JsonPlayerImpl getOrLoad(@NotNull UUID uuid, @NotNull Function<UUID, JsonPlayerImpl> loader) {
+        JsonPlayerImpl cached = get(uuid);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        // Read under the player's lock rather than inside computeIfAbsent, which would block every key of the
+        // map bin for the disk read. The lock also keeps a delete or eviction from interleaving with the read
+        misses.incrementAndGet();
+        JsonPlayerImpl loaded;
+        Lock lock = locks.apply(uuid);
+        lock.lock();
+        try {
+            Entry existing = entries.get(uuid);
+            if (existing != null) {
+                existing.lastAccess = clock.incrementAndGet();
+                return existing.player;
+            }
+
+            loaded = loader.apply(uuid);
+            if (loaded == null) {
+                return null;
+            }
+            // Only a re-admitted instance can get in without the lock, that one is current
+            Entry readmitted = entries.putIfAbsent(uuid, new Entry(loaded, clock.incrementAndGet()));
+            if (readmitted != null) {
+                return readmitted.player;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        evictIfNeeded();
+        return loaded;
+    }
+
+    /**
+     * Gets a loaded player without counting it as a use
+     */
+    @Nullable
+    JsonPlayerImpl peek(@NotNull UUID uuid) {
+        Entry entry = entries.get(uuid);
+        return entry != null ? entry.player : null;
+    }
+
+    void put(@NotNull JsonPlayerImpl player) {
+        entries.put(player.getUuid(), new Entry(player, clock.incrementAndGet()));
+        evictIfNeeded();
+    }
+
+    /**
+     * Puts a player back that was evicted while a caller still held it
+     * @return true if this instance is cached now, false if another one was loaded in the meantime
+     */
+    boolean readmit(@NotNull JsonPlayerImpl player) {
+        Entry entry = entries.computeIfAbsent(player.getUuid(), uuid -> new Entry(player, clock.incrementAndGet()));
+        return entry.player == player;
+    }
+
+    @Nullable
+    JsonPlayerImpl remove(@NotNull UUID uuid) {
+        Entry removed = entries.remove(uuid);
+        return removed != null ? removed.player : null;
+    }
+
+    boolean contains(@NotNull UUID uuid) {
+        return entries.containsKey(uuid);
+    }
+
+    /**
+     * Gets the currently loaded players, without affecting their recency
+     */
+    @NotNull
+    Collection<JsonPlayerImpl> values() {
+        List<JsonPlayerImpl> players = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            players.add(entry.player);
+        }
+        return players;
+    }
+
+    @NotNull
+    Set<UUID> keySet() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Stops the eviction thread, letting a running eviction finish
+     */
+    void close() {
+        evictor.shutdown();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    // ===================================================================================================
+    // EVICTION
+    // ===================================================================================================
+
+    /**
+     * Starts an eviction on the background thread once the cache is over its capacity
+     */
+    private void evictIfNeeded() {
+        if (entries.size() <= capacity || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            evictor.execute(this::evict);
+        } catch (RejectedExecutionException e) {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Evicts the least recently used unpinned players down to 90% of the capacity
+     */
+    private void evict() {
+        try {
+            int target = capacity - capacity / 10;
+            List<Candidate> candidates = new ArrayList<>();
+            entries.forEach((uuid, entry) -> {
+                if (!pinned.test(entry.player)) {
+                    candidates.add(new Candidate(uuid, entry, entry.lastAccess));
+                }
+            });
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+
+            for (Candidate candidate : candidates) {
+                if (entries.size() <= target) {
+                    break;
+                }
+                if (evict(candidate)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Writes a player and only then removes it, so a load right after the removal reads the written file
+     */
+    private boolean evict(@NotNull Candidate candidate) {
+        Lock lock = locks.apply(candidate.uuid);
+        lock.lock();
+        try {
+            // Skip entries touched since the scan, they are no longer the least recently used
+            if (candidate.entry.lastAccess != candidate.lastAccess || entries.get(candidate.uuid) != candidate.entry
+                    || pinned.test(candidate.entry.player)) {
+                return false;
+            }
+            if (!onEvict.test(candidate.entry.player)) {
+                return false;
+            }
+            if (candidate.entry.lastAccess != candidate.lastAccess || !entries.remove(candidate.uuid, candidate.entry)) {
+                return false;
+            }
+
+            JsonPlayerImpl player = candidate.entry.player;
+            player.setEvicted(true);
+            ExpiryScheduler.cancelAll(JsonStorage.EXPIRY_NAMESPACE, candidate.uuid);
+            // A caller still holding the player changed it after the write, keep it instead of losing the change
+            if (player.getPersistence().isDirty() && readmit(player)) {
+                player.setEvicted(false);
+                player.scheduleExpiries();
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Candidate(@NotNull UUID uuid, @NotNull Entry entry, long lastAccess) {
+    }
+
+    private static final class Entry {
+
+        private final JsonPlayerImpl player;
+        private volatile long lastAccess;
+
+        private Entry(@NotNull JsonPlayerImpl player, long lastAccess) {
+            this.player = player;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package me.chickxn.permify;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted indexes over every stored player and group, loaded or not:
+ * group to member players, permission node to the players and groups holding it directly
+ * (including temporary entries), and case-insensitive name to player.
+ * Player postings are kept on disk in pages hashed by key (index/groups, index/nodes, index/names),
+ * read on first use and cached up to a page limit. A change is applied as a diff against the entry the
+ * player was last indexed with, so it only touches the pages of the keys that changed; touched pages
+ * stay in memory until {@link #flush()} writes them with the next snapshot. A flush first writes every
+ * page into a redo file, so a crash in the middle of it is repaired by the next {@link #open}.
+ * Group postings are few and are rebuilt from the groups on every start, they stay in memory.
+ */
+class JsonQueryIndex {
+
+    private static final String MANIFEST_FILE = "index.json";
+    private static final String REDO_FILE = "flush.json";
+    private static final String PAGE_SUFFIX = ".json";
+    // Bumped when the page layout changes, an index of another version is rebuilt
+    private static final int VERSION = 2;
+
+    private static final Type PAGE_TYPE = new TypeToken<Map<String, Set<UUID>>>() {}.getType();
+    private static final Type REDO_TYPE = new TypeToken<Map<String, Map<String, Set<UUID>>>>() {}.getType();
+
+    private final Gson gson;
+
+    private Path directory;
+    private int cachedPages;
+
+    // Player postings: loaded pages in access order, only clean pages are dropped past the limit
+    private final Object pageLock = new Object();
+    private final LinkedHashMap<String, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    // Serializes flushes, a page is only marked clean by the flush that wrote its last change
+    private final Object flushLock = new Object();
+
+    // Group postings: the direct nodes of every group and the groups holding each node
+    private final Map<String, Set<String>> groupNodes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> groupHolders = new ConcurrentHashMap<>();
+
+    /**
+     * @param gson used for the page files, any Gson that handles UUIDs as strings
+     */
+    JsonQueryIndex(@NotNull Gson gson) {
+        this.gson = gson;
+    }
+
+    // ===================================================================================================
+    // LIFECYCLE
+    // ===================================================================================================
+
+    /**
+     * Opens the index in a directory, finishing a flush a crash interrupted
+     * @param cachedPages how many clean pages to keep in memory
+     * @return true if the directory holds a complete index, false if it has to be built first
+     */
+    boolean open(@NotNull Path directory, int cachedPages) throws IOException {
+        this.directory = directory;
+        this.cachedPages = Math.max(1, cachedPages);
+        Files.createDirectories(directory);
+
+        Path redo = directory.resolve(REDO_FILE);
+        if (Files.exists(redo)) {
+            Map<String, Map<String, Set<UUID>>> redoPages;
+            try (Reader reader = Files.newBufferedReader(redo, StandardCharsets.UTF_8)) {
+                redoPages = gson.fromJson(reader, REDO_TYPE);
+            }
+            if (redoPages != null) {
+                for (Map.Entry<String, Map<String, Set<UUID>>> page : redoPages.entrySet()) {
+                    writePage(page.getKey(), page.getValue());
+                }
+            }
+            Files.delete(redo);
+        }
+
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return false;
+        }
+        try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            Manifest read = gson.fromJson(reader, Manifest.class);
+            return read != null && read.version == VERSION;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drops every player posting on disk and in memory, the start of a rebuild
+     */
+    void reset() throws IOException {
+        synchronized (pageLock) {
+            pages.clear();
+        }
+        Files.deleteIfExists(directory.resolve(MANIFEST_FILE));
+        for (Kind kind : Kind.values()) {
+            Path kindDirectory = directory.resolve(kind.directory);
+            if (!Files.isDirectory(kindDirectory)) {
+                continue;
+            }
+            try (var files = Files.list(kindDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes a freshly built index and records it as complete
+     */
+    void markComplete() throws IOException {
+        flush();
+        Manifest manifest = new Manifest();
+        manifest.version = VERSION;
+        JsonStorage.writeAtomically(directory.resolve(MANIFEST_FILE), writer -> gson.toJson(manifest, Manifest.class, writer));
+    }
+
+    /**
+     * Forgets everything held in memory, unflushed changes included
+     */
+    void close() {
+        synchronized (pageLock) {
+            pages.clear();
+        }
+        groupNodes.clear();
+        groupHolders.clear();
+    }
+
+    // ===================================================================================================
+    // UPDATES
+    // ===================================================================================================
+
+    /**
+     * Moves a player from the postings of the entry it was last indexed with to those of its new entry.
+     * Callers serialize the updates of one player, the before entry has to be the last after entry.
+     */
+    void updatePlayer(@NotNull UUID uuid, @NotNull Entry before, @NotNull Entry after) {
+        synchronized (pageLock) {
+            diff(Kind.GROUPS, before.groups, after.groups, uuid);
+            diff(Kind.NODES, before.nodes, after.nodes, uuid);
+
+            if (!Objects.equals(before.name, after.name)) {
+                if (before.name != null) {
+                    Page page = page(Kind.NAMES, before.name);
+                    Set<UUID> owner = page.postings.get(before.name);
+                    if (owner != null && owner.contains(uuid)) {
+                        page.postings.remove(before.name);
+                        page.touch();
+                    }
+                }
+                // The latest player to use a name owns it, a renamed-away player keeps it only until then
+                if (after.name != null) {
+                    Page page = page(Kind.NAMES, after.name);
+                    page.postings.put(after.name, new HashSet<>(Set.of(uuid)));
+                    page.touch();
+                }
+            }
+            trim();
+        }
+    }
+
+    /**
+     * Indexes a group with its current direct nodes
+     */
+    void indexGroup(@NotNull String name, @NotNull Collection<String> nodes) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Set<String> updated = Set.copyOf(nodes);
+        groupNodes.compute(key, (group, previous) -> {
+            Set<String> old = previous != null ? previous : Set.of();
+            for (String node : old) {
+                if (!updated.contains(node)) {
+                    groupHolders.computeIfPresent(node, (k, holders) -> {
+                        holders.remove(key);
+                        return holders.isEmpty() ? null : holders;
+                    });
+                }
+            }
+            for (String node : updated) {
+                if (!old.contains(node)) {
+                    groupHolders.computeIfAbsent(node, k -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Drops a deleted group, including every player's membership in it
+     */
+    void removeGroup(@NotNull String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        indexGroup(key, Set.of());
+        groupNodes.remove(key);
+
+        synchronized (pageLock) {
+            Page page = page(Kind.GROUPS, key);
+            if (page.postings.remove(key) != null) {
+                page.touch();
+            }
+            trim();
+        }
+    }
+
+    // ===================================================================================================
+    // QUERIES
+    // ===================================================================================================
+
+    @NotNull
+    Set<UUID> getGroupMembers(@NotNull String group) {
+        return postings(Kind.GROUPS, group.toLowerCase(Locale.ROOT));
+    }
+
+    @Nullable
+    UUID findPlayer(@NotNull String name) {
+        Set<UUID> owner = postings(Kind.NAMES, name.toLowerCase(Locale.ROOT));
+        return owner.isEmpty() ? null : owner.iterator().next();
+    }
+
+    @NotNull
+    Set<UUID> getPlayersWithPermission(@NotNull String node) {
+        return postings(Kind.NODES, node);
+    }
+
+    @NotNull
+    Set<String> getGroupsWithPermission(@NotNull String node) {
+        Set<String> holders = groupHolders.get(node);
+        return holders != null ? Set.copyOf(holders) : Set.of();
+    }
+
+    int getCachedPages() {
+        synchronized (pageLock) {
+            return pages.size();
+        }
+    }
+
+    int getDirtyPages() {
+        synchronized (pageLock) {
+            return (int) pages.values().stream().filter(page -> page.dirty).count();
+        }
+    }
+
+    boolean hasPendingChanges() {
+        return getDirtyPages() > 0;
+    }
+
+    // ===================================================================================================
+    // PERSISTENCE
+    // ===================================================================================================
+
+    /**
+     * Writes every page changed since the last flush. The pages go into the redo file first and only
+     * then to their own files, so an interrupted flush leaves a redo file that {@link #open} completes.
+     * @throws IOException if the pages could not be written, they stay dirty for the next flush
+     */
+    void flush() throws IOException {
+        synchronized (flushLock) {
+            Map<String, Map<String, Set<UUID>>> copies = new LinkedHashMap<>();
+            Map<String, Long> versions = new HashMap<>();
+            synchronized (pageLock) {
+                pages.forEach((id, page) -> {
+                    if (page.dirty) {
+                        Map<String, Set<UUID>> copy = new HashMap<>();
+                        page.postings.forEach((key, owners) -> copy.put(key, new HashSet<>(owners)));
+                        copies.put(id, copy);
+                        versions.put(id, page.version);
+                    }
+                });
+            }
+            if (copies.isEmpty()) {
+                return;
+            }
+
+            Path redo = directory.resolve(REDO_FILE);
+            JsonStorage.writeAtomically(redo, writer -> gson.toJson(copies, REDO_TYPE, writer));
+            for (Map.Entry<String, Map<String, Set<UUID>>> copy : copies.entrySet()) {
+                writePage(copy.getKey(), copy.getValue());
+            }
+            Files.delete(redo);
+
+            synchronized (pageLock) {
+                versions.forEach((id, version) -> {
+                    Page page = pages.get(id);
+                    if (page != null && page.version == version) {
+                        page.dirty = false;
+                    }
+                });
+                trim();
+            }
+        }
+    }
+
+    // ===================================================================================================
+    // HELPERS
+    // ===================================================================================================
+
+    /**
+     * Moves an owner from the postings of the keys it lost to those of the keys it gained
+     */
+    private void diff(@NotNull Kind kind, @NotNull Set<String> before, @NotNull Set<String> after, @NotNull UUID owner) {
+        for (String key : before) {
+            if (!after.contains(key)) {
+                Page page = page(kind, key);
+                Set<UUID> owners = page.postings.get(key);
+                if (owners != null && owners.remove(owner)) {
+                    if (owners.isEmpty()) {
+                        page.postings.remove(key);
+                    }
+                    page.touch();
+                }
+            }
+        }
+        for (String key : after) {
+            if (!before.contains(key)) {
+                Page page = page(kind, key);
+                if (page.postings.computeIfAbsent(key, k -> new HashSet<>()).add(owner)) {
+                    page.touch();
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private Set<UUID> postings(@NotNull Kind kind, @NotNull String key) {
+        synchronized (pageLock) {
+            Set<UUID> owners = page(kind, key).postings.get(key);
+            Set<UUID> copy = owners != null ? Set.copyOf(owners) : Set.of();
+            trim();
+            return copy;
+        }
+    }
+
+    /**
+     * Gets the page holding a key, reading it from disk if it is not cached. Guarded by the page lock.
+     */
+    @NotNull
+    private Page page(@NotNull Kind kind, @NotNull String key) {
+        String id = kind.directory + "/" + String.format(Locale.ROOT, "%02x", Math.floorMod(key.hashCode(), kind.buckets));
+        Page page = pages.get(id);
+        if (page == null) {
+            page = new Page(readPage(id));
+            pages.put(id, page);
+        }
+        return page;
+    }
+
+    @NotNull
+    private Map<String, Set<UUID>> readPage(@NotNull String id) {
+        Path file = directory.resolve(id + PAGE_SUFFIX);
+        if (!Files.exists(file)) {
+            return new HashMap<>();
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Set<UUID>> postings = gson.fromJson(reader, PAGE_TYPE);
+            Map<String, Set<UUID>> mutable = new HashMap<>();
+            if (postings != null) {
+                postings.forEach((key, owners) -> mutable.put(key, new HashSet<>(owners)));
+            }
+            return mutable;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read query index page " + file
+                    + ", set rebuild-query-index to rebuild the index", e);
+        }
+    }
+
+    private void writePage(@NotNull String id, @NotNull Map<String, Set<UUID>> postings) throws IOException {
+        JsonStorage.writeAtomically(directory.resolve(id + PAGE_SUFFIX), writer -> gson.toJson(postings, PAGE_TYPE, writer));
+    }
+
+    /**
+     * Drops the least recently used clean pages past the limit. Guarded by the page lock.
+     */
+    private void trim() {
+        Iterator<Page> iterator = pages.values().iterator();
+        while (pages.size() > cachedPages && iterator.hasNext()) {
+            if (!iterator.next().dirty) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * What a player is indexed under: its lower-cased name and groups and its direct and temporary nodes
+     */
+    record Entry(@Nullable String name, @NotNull Set<String> groups, @NotNull Set<String> nodes) {
+        static final Entry EMPTY = new Entry(null, Set.of(), Set.of());
+
+        @NotNull
+        static Entry of(@Nullable String name, @NotNull Collection<String> groups, @NotNull Collection<String> nodes) {
+            Set<String> groupKeys = new HashSet<>();
+            for (String group : groups) {
+                groupKeys.add(group.toLowerCase(Locale.ROOT));
+            }
+            return new Entry(name != null ? name.toLowerCase(Locale.ROOT) : null, Set.copyOf(groupKeys), Set.copyOf(nodes));
+        }
+    }
+
+    private enum Kind {
+        GROUPS("groups", 64),
+        NODES("nodes", 256),
+        NAMES("names", 256);
+
+        private final String directory;
+        private final int buckets;
+
+        Kind(@NotNull String directory, int buckets) {
+            this.directory = directory;
+            this.buckets = buckets;
+        }
+    }
+
+    private static final class Page {
+        private final Map<String, Set<UUID>> postings;
+        // Set by every change, cleared by the flush that wrote the page at its current version
+        private boolean dirty;
+        private long version;
+
+        private Page(@NotNull Map<String, Set<UUID>> postings) {
+            this.postings = postings;
+        }
+
+        private void touch() {
+            dirty = true;
+            version++;
+        }
+    }
+
+    private static final class Manifest {
+        private int version;
+    }
+}
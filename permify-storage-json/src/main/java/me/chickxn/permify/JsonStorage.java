@@ -6,9 +6,16 @@
 package me.chickxn.permify;
 
 import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import me.chickxn.permify.data.interfaces.GroupInterface;
 import me.chickxn.permify.data.interfaces.PlayerInterface;
+import me.chickxn.permify.data.permission.ExpiryScheduler;
+import me.chickxn.permify.data.permission.PermissionInvalidation;
+import me.chickxn.permify.data.permission.PermissionInvalidationBus;
+import me.chickxn.permify.data.permission.PermissionNodeSet;
+import me.chickxn.permify.data.permission.PermissionSet;
+import me.chickxn.permify.data.permission.PermissionSnapshot;
 import me.chickxn.permify.data.storage.StorageModule;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -17,16 +24,28 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -40,34 +59,63 @@ public class JsonStorage extends StorageModule {
     private static final String PLAYERS_FILE = "players.json";
     private static final String GROUPS_FILE = "groups.json";
     private static final String BACKUP_SUFFIX = ".backup";
-
-    // Data storage
-    private final Map<UUID, JsonPlayerImpl> playerCache = new ConcurrentHashMap<>();
-    private final Map<String, JsonGroupImpl> groupCache = new ConcurrentHashMap<>();
-    private final Map<Integer, JsonGroupImpl> groupIdCache = new ConcurrentHashMap<>();
+    private static final String PLAYERS_DIRECTORY = "players";
+    private static final String PLAYER_FILE_SUFFIX = ".json";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final String INDEX_DIRECTORY = "index";
+    private static final int DEFAULT_PLAYER_CACHE_SIZE = 5000;
+    private static final int DEFAULT_INDEX_CACHE_PAGES = 256;
+    private static final int LOAD_BATCH_SIZE = 512;
+    // Namespace of the player expiry schedules, kept apart from the permission handler's
+    static final String EXPIRY_NAMESPACE = "storage-json";
+
+    // Data storage (players are loaded on demand, only online and recently used ones stay in memory)
+    private JsonPlayerCache playerCache;
+    // Groups are published as an immutable catalog, replaced under the hierarchy lock on every change
+    private volatile GroupCatalog groupCatalog = GroupCatalog.EMPTY;
 
     // File management
     private Path dataDirectory;
     private Path playersFile;
+    private Path playersDirectory;
     private Path groupsFile;
+    private Path journalDirectory;
+    private Path indexDirectory;
+
+    // Group membership, permission node and name indexes over every stored player and group, paged from disk
+    private final JsonQueryIndex queryIndex;
 
-    // Thread safety
-    private final ReadWriteLock dataLock = new ReentrantReadWriteLock();
+    // Write-ahead journal, the JSON files are the compacted snapshot it is replayed onto
+    private JsonJournal journal;
+    // Player files a replayed deletion could not remove yet, retried by every save until it succeeds
+    private final Set<UUID> pendingFileDeletes = ConcurrentHashMap.newKeySet();
 
-    // JSON handling
+    // Thread safety: reads go straight to the concurrent maps, player lifecycle changes lock only their stripe
+    // and group structure changes (create, delete, hierarchy) share the hierarchy lock
+    private final StripedLock playerLocks = new StripedLock(64);
+    private final Object hierarchyLock = new Object();
+    // Serializes snapshot saves, each one rotates the journal and acknowledges what it wrote
+    private final Object saveLock = new Object();
+
+    // JSON handling (compact output, a snapshot is read by the plugin, not by people)
     private final Gson gson;
     private final Logger logger;
 
     // Auto-save
     private Timer autoSaveTimer;
-    private boolean isDirty = false;
+    // Dirty queue: every player changed since its last write, and the version of groups.json
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+    private final EntityVersion groupsVersion = new EntityVersion();
 
     // ID management
-    private int nextGroupId = 1;
+    private final AtomicInteger nextGroupId = new AtomicInteger(1);
 
     public JsonStorage() {
         this.logger = Logger.getLogger("Permify-JsonStorage");
         this.gson = createGson();
+        this.queryIndex = new JsonQueryIndex(gson);
     }
 
     // ===================================================================================================
@@ -78,8 +126,35 @@ public class JsonStorage extends StorageModule {
     public void start() throws Exception {
         logger.info("Starting JSON storage module...");
 
+        playerCache = new JsonPlayerCache(
+                getConfigInt("player-cache-size", DEFAULT_PLAYER_CACHE_SIZE),
+                JsonPlayerImpl::isOnline,
+                playerLocks::get,
+                this::onPlayerEvicted
+        );
+
         setupDataDirectory();
+        boolean indexComplete = queryIndex.open(indexDirectory,
+                getConfigInt("query-index-cache-pages", DEFAULT_INDEX_CACHE_PAGES));
         loadAllData();
+        groupCatalog.groups().forEach(this::indexGroup);
+        // The only full scan: the first start with an index, or a rebuild asked for in the config
+        if (!indexComplete || getConfigBoolean("rebuild-query-index", false)) {
+            buildQueryIndex();
+        }
+
+        journal = new JsonJournal(journalDirectory, gson, logger,
+                getConfigInt("journal-commit-millis", 2),
+                uuid -> {
+                    JsonPlayerImpl player = playerCache.peek(uuid);
+                    return player != null ? player.toData() : null;
+                },
+                id -> {
+                    JsonGroupImpl group = groupCatalog.get(id);
+                    return group != null ? group.toData() : null;
+                });
+        journal.open();
+
         startAutoSave();
 
         markStarted();
@@ -95,16 +170,14 @@ public class JsonStorage extends StorageModule {
             autoSaveTimer = null;
         }
 
+        // Commit the journal tail, then fold everything into the snapshot
+        journal.close();
         saveAllData();
 
-        dataLock.writeLock().lock();
-        try {
-            playerCache.clear();
-            groupCache.clear();
-            groupIdCache.clear();
-        } finally {
-            dataLock.writeLock().unlock();
-        }
+        playerCache.close();
+        playerCache.clear();
+        groupCatalog = GroupCatalog.EMPTY;
+        queryIndex.close();
 
         markStopped();
         logger.info("JSON storage module stopped successfully");
@@ -120,7 +193,11 @@ public class JsonStorage extends StorageModule {
     @NotNull
     public Map<String, String> getConfigRequirements() {
         return Map.of(
-                "data-directory", "Directory to store JSON files (optional, defaults to plugin folder)"
+                "data-directory", "Directory to store JSON files (optional, defaults to plugin folder)",
+                "player-cache-size", "Number of offline players kept in memory (optional, defaults to " + DEFAULT_PLAYER_CACHE_SIZE + ")",
+                "journal-commit-millis", "How long the journal gathers changes into one fsync (optional, defaults to 2)",
+                "query-index-cache-pages", "Number of query index pages kept in memory (optional, defaults to " + DEFAULT_INDEX_CACHE_PAGES + ")",
+                "rebuild-query-index", "Rebuild the query index from every player file on start (optional, defaults to false)"
         );
     }
 
@@ -143,12 +220,7 @@ public class JsonStorage extends StorageModule {
     @Override
     @Nullable
     public PlayerInterface loadPlayer(@NotNull UUID uuid) {
-        dataLock.readLock().lock();
-        try {
-            return playerCache.get(uuid);
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return playerCache.getOrLoad(uuid, this::readPlayerFile);
     }
 
     @Override
@@ -158,61 +230,86 @@ public class JsonStorage extends StorageModule {
             return false;
         }
 
-        dataLock.writeLock().lock();
+        JsonPlayerImpl jsonPlayer = (JsonPlayerImpl) player;
+        Lock lock = playerLocks.get(jsonPlayer.getUuid());
+        lock.lock();
         try {
-            JsonPlayerImpl jsonPlayer = (JsonPlayerImpl) player;
-            playerCache.put(player.getUuid(), jsonPlayer);
-            isDirty = true;
+            playerCache.put(jsonPlayer);
+            markPlayerDirty(jsonPlayer);
             return true;
         } finally {
-            dataLock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
     @Override
     @NotNull
     public PlayerInterface createPlayer(@NotNull UUID uuid, @NotNull String name) {
-        dataLock.writeLock().lock();
+        Lock lock = playerLocks.get(uuid);
+        lock.lock();
         try {
             JsonPlayerImpl player = new JsonPlayerImpl(uuid, name, this);
             player.setFirstJoin(LocalDateTime.now());
             player.setLastSeen(LocalDateTime.now());
 
-            playerCache.put(uuid, player);
-            isDirty = true;
+            playerCache.put(player);
+            markPlayerDirty(player);
 
             logger.info("Created new player: " + name + " (" + uuid + ")");
             return player;
         } finally {
-            dataLock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
     @Override
     public boolean deletePlayer(@NotNull UUID uuid) {
-        dataLock.writeLock().lock();
+        Lock lock = playerLocks.get(uuid);
+        lock.lock();
         try {
+            // What the index holds for the player, read before its file goes
+            JsonPlayerImpl cached = playerCache.peek(uuid);
+            JsonQueryIndex.Entry indexed = cached != null ? cached.getIndexed() : readIndexEntry(uuid);
+
+            // File first, so a concurrent load cannot bring the player back after it left the cache
+            boolean deletedFile = deletePlayerFile(uuid);
             JsonPlayerImpl removed = playerCache.remove(uuid);
-            if (removed != null) {
-                isDirty = true;
-                logger.info("Deleted player: " + removed.getName() + " (" + uuid + ")");
+            if (removed != null || deletedFile) {
+                dirtyPlayers.remove(uuid);
+                queryIndex.updatePlayer(uuid, indexed, JsonQueryIndex.Entry.EMPTY);
+                if (journal != null) {
+                    journal.recordPlayerDeleted(uuid);
+                }
+                ExpiryScheduler.cancelAll(EXPIRY_NAMESPACE, uuid);
+                PermissionInvalidationBus.publish(PermissionInvalidation.player(uuid, "deleted"));
+                logger.info("Deleted player: " + (removed != null ? removed.getName() : "offline") + " (" + uuid + ")");
                 return true;
             }
             return false;
         } finally {
-            dataLock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
     @Override
     @NotNull
     public Set<UUID> getAllPlayerUUIDs() {
-        dataLock.readLock().lock();
-        try {
-            return new HashSet<>(playerCache.keySet());
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        // Every player has a file once saved, players created since the last save only exist in the cache
+        Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+        uuids.addAll(playerCache.keySet());
+        listPlayerShards().parallelStream().forEach(shard -> {
+            try (var files = Files.list(shard)) {
+                files.forEach(file -> {
+                    UUID uuid = parsePlayerFileName(file);
+                    if (uuid != null) {
+                        uuids.add(uuid);
+                    }
+                });
+            } catch (IOException e) {
+                logger.warning("Failed to list player files in " + shard + ": " + e.getMessage());
+            }
+        });
+        return new HashSet<>(uuids);
     }
 
     // ===================================================================================================
@@ -222,23 +319,13 @@ public class JsonStorage extends StorageModule {
     @Override
     @Nullable
     public GroupInterface loadGroup(@NotNull String name) {
-        dataLock.readLock().lock();
-        try {
-            return groupCache.get(name.toLowerCase());
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return groupCatalog.get(name);
     }
 
     @Override
     @Nullable
     public GroupInterface loadGroup(int id) {
-        dataLock.readLock().lock();
-        try {
-            return groupIdCache.get(id);
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return groupCatalog.get(id);
     }
 
     @Override
@@ -248,99 +335,244 @@ public class JsonStorage extends StorageModule {
             return false;
         }
 
-        dataLock.writeLock().lock();
-        try {
-            JsonGroupImpl jsonGroup = (JsonGroupImpl) group;
-            groupCache.put(group.getName().toLowerCase(), jsonGroup);
-            groupIdCache.put(group.getId(), jsonGroup);
-            isDirty = true;
+        synchronized (hierarchyLock) {
+            groupCatalog = groupCatalog.with((JsonGroupImpl) group);
+            markGroupDirty((JsonGroupImpl) group);
             return true;
-        } finally {
-            dataLock.writeLock().unlock();
         }
     }
 
     @Override
     @NotNull
     public GroupInterface createGroup(@NotNull String name) {
-        dataLock.writeLock().lock();
-        try {
-            int id = nextGroupId++;
+        synchronized (hierarchyLock) {
+            int id = nextGroupId.getAndIncrement();
             JsonGroupImpl group = new JsonGroupImpl(id, name, this);
             group.setCreatedAt(LocalDateTime.now());
             group.setLastModified(LocalDateTime.now());
 
-            groupCache.put(name.toLowerCase(), group);
-            groupIdCache.put(id, group);
-            isDirty = true;
+            groupCatalog = groupCatalog.with(group);
+            markGroupDirty(group);
 
             logger.info("Created new group: " + name + " (ID: " + id + ")");
             return group;
-        } finally {
-            dataLock.writeLock().unlock();
         }
     }
 
     @Override
     public boolean deleteGroup(@NotNull GroupInterface group) {
-        dataLock.writeLock().lock();
-        try {
-            JsonGroupImpl removed1 = groupCache.remove(group.getName().toLowerCase());
-            JsonGroupImpl removed2 = groupIdCache.remove(group.getId());
+        List<JsonPlayerImpl> loadedMembers = new ArrayList<>();
+        List<UUID> offlineMembers = new ArrayList<>();
+        synchronized (hierarchyLock) {
+            GroupCatalog current = groupCatalog;
+            GroupCatalog updated = current.without(group.getName(), group.getId());
+
+            if (updated == current) {
+                return false;
+            }
+            groupCatalog = updated;
 
-            if (removed1 != null || removed2 != null) {
-                // Remove group from all players
-                for (JsonPlayerImpl player : playerCache.values()) {
+            // Remove group from its loaded members, the files of the others are rewritten below
+            for (UUID uuid : queryIndex.getGroupMembers(group.getName())) {
+                JsonPlayerImpl player = playerCache.peek(uuid);
+                if (player != null) {
                     player.removeGroup(group);
+                    loadedMembers.add(player);
+                } else {
+                    offlineMembers.add(uuid);
                 }
+            }
+            queryIndex.removeGroup(group.getName());
+
+            // Remove as parent from other groups, and as child from its own parents so no closure refresh reaches it
+            for (JsonGroupImpl otherGroup : updated.groups()) {
+                otherGroup.removeParentGroup(group);
+            }
+            if (group instanceof JsonGroupImpl) {
+                ((JsonGroupImpl) group).detachFromParents();
+            }
 
-                // Remove as parent from other groups
-                for (JsonGroupImpl otherGroup : groupCache.values()) {
-                    otherGroup.removeParentGroup(group);
+            markGroupDeleted(group);
+        }
+
+        // File writes happen outside the hierarchy lock so they do not stall hierarchy changes
+        loadedMembers.forEach(this::markPlayerDirty);
+        for (UUID uuid : offlineMembers) {
+            removeGroupFromPlayerFile(uuid, group.getName());
+        }
+
+        PermissionInvalidationBus.publish(PermissionInvalidation.group(group.getName(), "deleted"));
+        logger.info("Deleted group: " + group.getName() + " (ID: " + group.getId() + ")");
+        return true;
+    }
+
+    /**
+     * Drops a deleted group from the file of a player that is not loaded, so re-creating a group with
+     * the same name does not bring back the old memberships
+     */
+    private void removeGroupFromPlayerFile(@NotNull UUID uuid, @NotNull String groupName) {
+        Lock lock = playerLocks.get(uuid);
+        lock.lock();
+        try {
+            // Loaded since the members were collected, drop it from the instance instead
+            JsonPlayerImpl loaded = playerCache.peek(uuid);
+            if (loaded != null) {
+                GroupInterface group = loaded.getGroups().stream()
+                        .filter(candidate -> candidate.getName().equalsIgnoreCase(groupName))
+                        .findFirst().orElse(null);
+                if (group != null && loaded.removeGroup(group)) {
+                    markPlayerDirty(loaded);
                 }
+                return;
+            }
 
-                isDirty = true;
-                logger.info("Deleted group: " + group.getName() + " (ID: " + group.getId() + ")");
-                return true;
+            Path file = playerFile(uuid);
+            if (!Files.exists(file)) {
+                return;
             }
-            return false;
+            JsonPlayerData data;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                data = gson.fromJson(reader, JsonPlayerData.class);
+            }
+            if (data == null) {
+                return;
+            }
+
+            JsonQueryIndex.Entry indexed = indexEntry(data);
+            boolean changed = data.groupNames != null && data.groupNames.removeIf(name -> name.equalsIgnoreCase(groupName));
+            if (data.temporaryGroups != null) {
+                changed |= data.temporaryGroups.keySet().removeIf(name -> name.equalsIgnoreCase(groupName));
+            }
+            if (changed) {
+                writePlayerData(data);
+                queryIndex.updatePlayer(uuid, indexed, indexEntry(data));
+            }
+        } catch (Exception e) {
+            logger.warning("Failed to remove group " + groupName + " from player file of " + uuid + ": " + e.getMessage());
         } finally {
-            dataLock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
     @Override
     @NotNull
     public Set<String> getAllGroupNames() {
-        dataLock.readLock().lock();
-        try {
-            return groupCache.values().stream()
-                    .map(GroupInterface::getName)
-                    .collect(Collectors.toSet());
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return groupCatalog.groups().stream()
+                .map(GroupInterface::getName)
+                .collect(Collectors.toSet());
     }
 
     @Override
     @NotNull
     public List<GroupInterface> getAllGroups() {
-        dataLock.readLock().lock();
+        return new ArrayList<>(groupCatalog.groups());
+    }
+
+    /**
+     * Lock guarding group hierarchy changes and the materialized closures derived from it
+     */
+    @NotNull
+    Object getHierarchyLock() {
+        return hierarchyLock;
+    }
+
+    /**
+     * Records a change of a player and queues it for the next save, only queued players are written
+     */
+    void markPlayerDirty(@NotNull JsonPlayerImpl player) {
+        player.getPersistence().bump();
+        indexPlayer(player);
+        dirtyPlayers.add(player.getUuid());
+        if (journal != null) {
+            journal.recordPlayer(player.getUuid());
+        }
+        if (player.isEvicted()) {
+            readmitEvicted(player);
+        }
+    }
+
+    /**
+     * Brings back a player changed through a reference held past its eviction.
+     * If another instance of the player was loaded in the meantime, the change is written directly instead.
+     */
+    private void readmitEvicted(@NotNull JsonPlayerImpl player) {
+        if (playerCache.readmit(player)) {
+            player.setEvicted(false);
+            player.scheduleExpiries();
+            return;
+        }
+
+        logger.warning("Player " + player.getName() + " was changed after being evicted and reloaded, writing the change directly");
         try {
-            return new ArrayList<>(groupCache.values());
-        } finally {
-            dataLock.readLock().unlock();
+            long version = player.getPersistence().current();
+            writePlayerData(player.toData());
+            player.getPersistence().acknowledge(version);
+        } catch (IOException e) {
+            logger.severe("Failed to save evicted player " + player.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Records a change of a group, journals it and marks groups.json for the next save
+     */
+    void markGroupDirty(@NotNull JsonGroupImpl group) {
+        group.getPersistence().bump();
+        indexGroup(group);
+        groupsVersion.bump();
+        if (journal != null) {
+            journal.recordGroup(group.getId());
+        }
+    }
+
+    /**
+     * Records the deletion of a group, journals it and marks groups.json for the next save
+     */
+    private void markGroupDeleted(@NotNull GroupInterface group) {
+        groupsVersion.bump();
+        if (journal != null) {
+            journal.recordGroupDeleted(group.getId());
         }
     }
 
+    private boolean hasUnsavedChanges() {
+        return groupsVersion.isDirty() || !dirtyPlayers.isEmpty() || !pendingFileDeletes.isEmpty();
+    }
+
     @Override
     public int getNextGroupId() {
-        dataLock.readLock().lock();
-        try {
-            return nextGroupId;
-        } finally {
-            dataLock.readLock().unlock();
+        return nextGroupId.get();
+    }
+
+    @Override
+    @NotNull
+    public Set<UUID> getGroupMembers(@NotNull String groupName) {
+        return queryIndex.getGroupMembers(groupName);
+    }
+
+    @Override
+    @Nullable
+    public UUID findPlayerUuid(@NotNull String name) {
+        return queryIndex.findPlayer(name);
+    }
+
+    @Override
+    @NotNull
+    public Set<UUID> getPlayersWithPermission(@NotNull String permission) {
+        return queryIndex.getPlayersWithPermission(permission);
+    }
+
+    @Override
+    @NotNull
+    public Set<String> getGroupsWithPermission(@NotNull String permission) {
+        Set<String> names = new HashSet<>();
+        for (String key : queryIndex.getGroupsWithPermission(permission)) {
+            JsonGroupImpl group = groupCatalog.get(key);
+            if (group != null) {
+                names.add(group.getName());
+            }
         }
+        return names;
     }
 
     // ===================================================================================================
@@ -351,7 +583,7 @@ public class JsonStorage extends StorageModule {
     public boolean addPlayerPermission(@NotNull PlayerInterface player, @NotNull String permission) {
         if (player instanceof JsonPlayerImpl) {
             boolean added = player.addPermission(permission);
-            if (added) isDirty = true;
+            if (added) markPlayerDirty((JsonPlayerImpl) player);
             return added;
         }
         return false;
@@ -361,7 +593,7 @@ public class JsonStorage extends StorageModule {
     public boolean removePlayerPermission(@NotNull PlayerInterface player, @NotNull String permission) {
         if (player instanceof JsonPlayerImpl) {
             boolean removed = player.removePermission(permission);
-            if (removed) isDirty = true;
+            if (removed) markPlayerDirty((JsonPlayerImpl) player);
             return removed;
         }
         return false;
@@ -371,7 +603,7 @@ public class JsonStorage extends StorageModule {
     public boolean addGroupPermission(@NotNull GroupInterface group, @NotNull String permission) {
         if (group instanceof JsonGroupImpl) {
             boolean added = group.addPermission(permission);
-            if (added) isDirty = true;
+            if (added) markGroupDirty((JsonGroupImpl) group);
             return added;
         }
         return false;
@@ -381,7 +613,7 @@ public class JsonStorage extends StorageModule {
     public boolean removeGroupPermission(@NotNull GroupInterface group, @NotNull String permission) {
         if (group instanceof JsonGroupImpl) {
             boolean removed = group.removePermission(permission);
-            if (removed) isDirty = true;
+            if (removed) markGroupDirty((JsonGroupImpl) group);
             return removed;
         }
         return false;
@@ -391,7 +623,7 @@ public class JsonStorage extends StorageModule {
     public boolean addPlayerToGroup(@NotNull PlayerInterface player, @NotNull GroupInterface group) {
         if (player instanceof JsonPlayerImpl) {
             boolean added = player.addGroup(group);
-            if (added) isDirty = true;
+            if (added) markPlayerDirty((JsonPlayerImpl) player);
             return added;
         }
         return false;
@@ -401,7 +633,7 @@ public class JsonStorage extends StorageModule {
     public boolean removePlayerFromGroup(@NotNull PlayerInterface player, @NotNull GroupInterface group) {
         if (player instanceof JsonPlayerImpl) {
             boolean removed = player.removeGroup(group);
-            if (removed) isDirty = true;
+            if (removed) markPlayerDirty((JsonPlayerImpl) player);
             return removed;
         }
         return false;
@@ -411,7 +643,7 @@ public class JsonStorage extends StorageModule {
     public boolean setPlayerPrimaryGroup(@NotNull PlayerInterface player, @NotNull GroupInterface group) {
         if (player instanceof JsonPlayerImpl) {
             player.setPrimaryGroup(group);
-            isDirty = true;
+            markPlayerDirty((JsonPlayerImpl) player);
             return true;
         }
         return false;
@@ -421,7 +653,7 @@ public class JsonStorage extends StorageModule {
     public boolean addGroupParent(@NotNull GroupInterface childGroup, @NotNull GroupInterface parentGroup) {
         if (childGroup instanceof JsonGroupImpl) {
             boolean added = childGroup.addParentGroup(parentGroup);
-            if (added) isDirty = true;
+            if (added) markGroupDirty((JsonGroupImpl) childGroup);
             return added;
         }
         return false;
@@ -431,7 +663,7 @@ public class JsonStorage extends StorageModule {
     public boolean removeGroupParent(@NotNull GroupInterface childGroup, @NotNull GroupInterface parentGroup) {
         if (childGroup instanceof JsonGroupImpl) {
             boolean removed = childGroup.removeParentGroup(parentGroup);
-            if (removed) isDirty = true;
+            if (removed) markGroupDirty((JsonGroupImpl) childGroup);
             return removed;
         }
         return false;
@@ -442,7 +674,7 @@ public class JsonStorage extends StorageModule {
         if (player instanceof JsonPlayerImpl) {
             long durationSeconds = java.time.Duration.between(LocalDateTime.now(), expiry).toSeconds();
             boolean added = player.addTemporaryPermission(permission, durationSeconds);
-            if (added) isDirty = true;
+            if (added) markPlayerDirty((JsonPlayerImpl) player);
             return added;
         }
         return false;
@@ -453,7 +685,7 @@ public class JsonStorage extends StorageModule {
         if (player instanceof JsonPlayerImpl) {
             long durationSeconds = java.time.Duration.between(LocalDateTime.now(), expiry).toSeconds();
             boolean added = player.addTemporaryGroup(group, durationSeconds);
-            if (added) isDirty = true;
+            if (added) markPlayerDirty((JsonPlayerImpl) player);
             return added;
         }
         return false;
@@ -461,28 +693,12 @@ public class JsonStorage extends StorageModule {
 
     @Override
     public int cleanupExpiredEntries() {
+        // Entries normally expire on their own deadline (see ExpiryScheduler), this only sweeps stragglers
         int cleaned = 0;
         LocalDateTime now = LocalDateTime.now();
 
-        dataLock.writeLock().lock();
-        try {
-            for (JsonPlayerImpl player : playerCache.values()) {
-                Map<String, LocalDateTime> tempPerms = player.getTemporaryPermissions();
-                int beforePerms = tempPerms.size();
-                tempPerms.entrySet().removeIf(entry -> entry.getValue().isBefore(now));
-
-                Map<GroupInterface, LocalDateTime> tempGroups = player.getTemporaryGroups();
-                int beforeGroups = tempGroups.size();
-                tempGroups.entrySet().removeIf(entry -> entry.getValue().isBefore(now));
-
-                int playerCleaned = (beforePerms - tempPerms.size()) + (beforeGroups - tempGroups.size());
-                if (playerCleaned > 0) {
-                    cleaned += playerCleaned;
-                    isDirty = true;
-                }
-            }
-        } finally {
-            dataLock.writeLock().unlock();
+        for (JsonPlayerImpl player : playerCache.values()) {
+            cleaned += player.removeExpired(now);
         }
 
         if (cleaned > 0) {
@@ -496,7 +712,7 @@ public class JsonStorage extends StorageModule {
     public boolean addPlayerServerPermission(@NotNull PlayerInterface player, @NotNull String serverName, @NotNull String permission) {
         if (player instanceof JsonPlayerImpl) {
             boolean added = ((JsonPlayerImpl) player).addServerPermission(serverName, permission);
-            if (added) isDirty = true;
+            if (added) markPlayerDirty((JsonPlayerImpl) player);
             return added;
         }
         return false;
@@ -506,7 +722,7 @@ public class JsonStorage extends StorageModule {
     public boolean addPlayerWorldPermission(@NotNull PlayerInterface player, @NotNull String worldName, @NotNull String permission) {
         if (player instanceof JsonPlayerImpl) {
             boolean added = ((JsonPlayerImpl) player).addWorldPermission(worldName, permission);
-            if (added) isDirty = true;
+            if (added) markPlayerDirty((JsonPlayerImpl) player);
             return added;
         }
         return false;
@@ -519,7 +735,7 @@ public class JsonStorage extends StorageModule {
             player.setCustomPrefix(customPrefix);
             player.setCustomSuffix(customSuffix);
             player.setCustomColor(customColor);
-            isDirty = true;
+            markPlayerDirty((JsonPlayerImpl) player);
             return true;
         }
         return false;
@@ -539,7 +755,7 @@ public class JsonStorage extends StorageModule {
             if (priority > 0) group.setPriority(priority);
 
             jsonGroup.setLastModified(LocalDateTime.now());
-            isDirty = true;
+            markGroupDirty(jsonGroup);
             return true;
         }
         return false;
@@ -566,49 +782,49 @@ public class JsonStorage extends StorageModule {
             if (firstJoin != null) jsonPlayer.setFirstJoin(firstJoin);
             if (lastSeen != null) jsonPlayer.setLastSeen(lastSeen);
             jsonPlayer.setPlaytimeSeconds(playtimeSeconds);
-            isDirty = true;
+            markPlayerDirty(jsonPlayer);
             return true;
         }
         return false;
     }
 
     @Override
-    public boolean savePlayers(@NotNull List<PlayerInterface> players) {
-        dataLock.writeLock().lock();
-        try {
-            boolean allSaved = true;
-            for (PlayerInterface player : players) {
-                if (player instanceof JsonPlayerImpl) {
-                    playerCache.put(player.getUuid(), (JsonPlayerImpl) player);
-                } else {
-                    allSaved = false;
-                }
+    public boolean updatePlayerName(@NotNull PlayerInterface player, @NotNull String name) {
+        if (player instanceof JsonPlayerImpl) {
+            JsonPlayerImpl jsonPlayer = (JsonPlayerImpl) player;
+            if (!jsonPlayer.getName().equals(name)) {
+                // Marks the player changed, which re-indexes it under the new name
+                jsonPlayer.setName(name);
             }
-            if (allSaved) isDirty = true;
-            return allSaved;
-        } finally {
-            dataLock.writeLock().unlock();
+            return true;
         }
+        return false;
+    }
+
+    @Override
+    public boolean savePlayers(@NotNull List<PlayerInterface> players) {
+        boolean allSaved = true;
+        for (PlayerInterface player : players) {
+            allSaved &= savePlayer(player);
+        }
+        return allSaved;
     }
 
     @Override
     public boolean saveGroups(@NotNull List<GroupInterface> groups) {
-        dataLock.writeLock().lock();
-        try {
+        synchronized (hierarchyLock) {
             boolean allSaved = true;
+            List<JsonGroupImpl> jsonGroups = new ArrayList<>();
             for (GroupInterface group : groups) {
                 if (group instanceof JsonGroupImpl) {
-                    JsonGroupImpl jsonGroup = (JsonGroupImpl) group;
-                    groupCache.put(group.getName().toLowerCase(), jsonGroup);
-                    groupIdCache.put(group.getId(), jsonGroup);
+                    jsonGroups.add((JsonGroupImpl) group);
                 } else {
                     allSaved = false;
                 }
             }
-            if (allSaved) isDirty = true;
+            groupCatalog = groupCatalog.with(jsonGroups);
+            jsonGroups.forEach(this::markGroupDirty);
             return allSaved;
-        } finally {
-            dataLock.writeLock().unlock();
         }
     }
 
@@ -631,37 +847,74 @@ public class JsonStorage extends StorageModule {
     @Override
     @NotNull
     public Map<String, Object> getStorageStats() {
-        dataLock.readLock().lock();
-        try {
-            long totalPermissions = playerCache.values().stream()
-                    .mapToLong(p -> p.getDirectPermissions().size())
-                    .sum();
-
-            long totalGroupPermissions = groupCache.values().stream()
-                    .mapToLong(g -> g.getPermissions().size())
-                    .sum();
-
-            return Map.of(
-                    "type", getStorageType(),
-                    "running", isRunning(),
-                    "uptime", getUptime(),
-                    "healthy", isHealthy(),
-                    "players", playerCache.size(),
-                    "groups", groupCache.size(),
-                    "total_player_permissions", totalPermissions,
-                    "total_group_permissions", totalGroupPermissions,
-                    "dirty", isDirty,
-                    "data_directory", dataDirectory.toString()
-            );
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        // One catalog read, so every group figure below describes the same point in time
+        GroupCatalog catalog = groupCatalog;
+        long totalPermissions = playerCache.values().stream()
+                .mapToLong(p -> p.getDirectPermissions().size())
+                .sum();
+
+        long totalGroupPermissions = catalog.groups().stream()
+                .mapToLong(g -> g.getPermissions().size())
+                .sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", getStorageType());
+        stats.put("running", isRunning());
+        stats.put("uptime", getUptime());
+        stats.put("healthy", isHealthy());
+        stats.put("players", playerCache.size());
+        stats.put("player_cache_capacity", playerCache.getCapacity());
+        stats.put("player_cache_hits", playerCache.getHits());
+        stats.put("player_cache_misses", playerCache.getMisses());
+        stats.put("player_cache_evictions", playerCache.getEvictions());
+        if (journal != null) {
+            stats.put("journal_pending", journal.getPendingCount());
+            stats.put("journal_records", journal.getCommittedRecords());
+        }
+        stats.put("groups", catalog.size());
+        stats.put("group_catalog_version", catalog.getVersion());
+        stats.put("total_player_permissions", totalPermissions);
+        stats.put("total_group_permissions", totalGroupPermissions);
+        stats.put("dirty", hasUnsavedChanges());
+        stats.put("dirty_players", dirtyPlayers.size());
+        stats.put("query_index_cached_pages", queryIndex.getCachedPages());
+        stats.put("query_index_dirty_pages", queryIndex.getDirtyPages());
+        stats.putAll(getPersistenceLag());
+        stats.put("data_directory", dataDirectory.toString());
+        return stats;
     }
 
     // ===================================================================================================
     // PRIVATE HELPER METHODS
     // ===================================================================================================
 
+    /**
+     * Measures how far the files are behind memory: unsaved changes and the age of the oldest one
+     */
+    @NotNull
+    private Map<String, Object> getPersistenceLag() {
+        long unsavedChanges = groupsVersion.getLag();
+        long oldestChange = groupsVersion.getDirtySince();
+        for (UUID uuid : dirtyPlayers) {
+            JsonPlayerImpl player = playerCache.peek(uuid);
+            if (player == null) {
+                continue;
+            }
+            EntityVersion version = player.getPersistence();
+            unsavedChanges += version.getLag();
+            long dirtySince = version.getDirtySince();
+            if (dirtySince > 0 && (oldestChange == 0 || dirtySince < oldestChange)) {
+                oldestChange = dirtySince;
+            }
+        }
+
+        Map<String, Object> lag = new LinkedHashMap<>();
+        lag.put("dirty_groups", groupCatalog.groups().stream().filter(group -> group.getPersistence().isDirty()).count());
+        lag.put("unsaved_changes", unsavedChanges);
+        lag.put("oldest_unsaved_change_ms", oldestChange > 0 ? System.currentTimeMillis() - oldestChange : 0L);
+        return lag;
+    }
+
     private void setupDataDirectory() throws Exception {
         dataDirectory = Paths.get("plugins", "Permify", "data");
 
@@ -671,44 +924,357 @@ public class JsonStorage extends StorageModule {
         }
 
         playersFile = dataDirectory.resolve(PLAYERS_FILE);
+        playersDirectory = dataDirectory.resolve(PLAYERS_DIRECTORY);
         groupsFile = dataDirectory.resolve(GROUPS_FILE);
+        journalDirectory = dataDirectory.resolve(JOURNAL_DIRECTORY);
+        indexDirectory = dataDirectory.resolve(INDEX_DIRECTORY);
+
+        Files.createDirectories(playersDirectory);
     }
 
     private void loadAllData() {
         try {
-            loadGroups();
-            loadPlayers();
+            shardFlatPlayerFiles();
+            migrateLegacyPlayers();
+
+            // Bring the snapshot up to date with changes that were journaled but not saved before a crash
+            GroupReplay groupReplay = new GroupReplay();
+            Map<UUID, JsonPlayerData> unwritten = new LinkedHashMap<>();
+            AtomicInteger failed = new AtomicInteger();
+            List<Path> replayed = JsonJournal.replay(journalDirectory, gson, logger, record -> {
+                if (!applyJournalRecord(record, groupReplay, unwritten)) {
+                    failed.incrementAndGet();
+                }
+            });
+
+            List<JsonGroupData> snapshot = readGroupsFile();
+            loadGroups(groupReplay.isEmpty() ? snapshot : groupReplay.apply(snapshot));
             createDefaultGroup();
+
+            // Groups deleted in the journal leave the index and their members' files like on a live delete
+            for (String name : groupReplay.deletedNames(snapshot)) {
+                if (groupCatalog.get(name) == null) {
+                    for (UUID uuid : queryIndex.getGroupMembers(name)) {
+                        removeGroupFromPlayerFile(uuid, name);
+                    }
+                    queryIndex.removeGroup(name);
+                }
+            }
+
+            // Players whose replayed record could not be written are held dirty until a save writes them
+            for (JsonPlayerData data : unwritten.values()) {
+                JsonPlayerImpl player = JsonPlayerImpl.fromData(data, this);
+                playerCache.put(player);
+                markPlayerDirty(player);
+            }
+
+            if (!replayed.isEmpty()) {
+                // Fold the replayed changes into the snapshot before their segments go away
+                if (!groupReplay.isEmpty()) {
+                    groupsVersion.bump();
+                }
+                // Records that failed to apply are queued for the save, so the segments only go once it succeeds
+                if (failed.get() > 0) {
+                    logger.warning("Failed to apply " + failed.get() + " journal records, retrying them with the next save");
+                }
+                if (saveAllData()) {
+                    for (Path segment : replayed) {
+                        Files.deleteIfExists(segment);
+                    }
+                } else {
+                    logger.severe("Keeping " + replayed.size() + " journal segments, their changes are not all on disk yet");
+                }
+            }
         } catch (Exception e) {
             logger.severe("Failed to load data: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void loadGroups() {
+    /**
+     * Builds the query index from every stored player, reading the player files in parallel by shard.
+     * Runs once to create the index and afterwards only when a rebuild is configured.
+     */
+    private void buildQueryIndex() throws IOException {
+        long start = System.currentTimeMillis();
+        logger.info("Building the query index from the player files...");
+        queryIndex.reset();
+
+        AtomicInteger indexed = new AtomicInteger();
+        listPlayerShards().parallelStream().forEach(shard -> {
+            try (var files = Files.list(shard)) {
+                files.forEach(file -> {
+                    UUID uuid = parsePlayerFileName(file);
+                    // Loaded players may be newer than their files, they are indexed from memory below
+                    if (uuid == null || playerCache.peek(uuid) != null) {
+                        return;
+                    }
+                    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                        JsonPlayerData data = gson.fromJson(reader, JsonPlayerData.class);
+                        if (data != null) {
+                            queryIndex.updatePlayer(uuid, JsonQueryIndex.Entry.EMPTY, indexEntry(data));
+                            indexed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        logger.warning("Failed to index player file " + file + ": " + e.getMessage());
+                    }
+                });
+            } catch (IOException e) {
+                logger.warning("Failed to list player files in " + shard + ": " + e.getMessage());
+            }
+        });
+
+        for (JsonPlayerImpl player : playerCache.values()) {
+            Lock lock = playerLocks.get(player.getUuid());
+            lock.lock();
+            try {
+                JsonQueryIndex.Entry entry = indexEntry(player);
+                queryIndex.updatePlayer(player.getUuid(), JsonQueryIndex.Entry.EMPTY, entry);
+                player.setIndexed(entry);
+                indexed.incrementAndGet();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        queryIndex.markComplete();
+        logger.info("Indexed " + indexed.get() + " players in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Moves a changed player in the index from the entry it was last indexed with to its current one
+     */
+    private void indexPlayer(@NotNull JsonPlayerImpl player) {
+        // The player's lock orders its updates, each diff starts from the entry the previous one left
+        Lock lock = playerLocks.get(player.getUuid());
+        lock.lock();
+        try {
+            JsonQueryIndex.Entry entry = indexEntry(player);
+            queryIndex.updatePlayer(player.getUuid(), player.getIndexed(), entry);
+            player.setIndexed(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @NotNull
+    private static JsonQueryIndex.Entry indexEntry(@NotNull JsonPlayerImpl player) {
+        Set<String> nodes = new HashSet<>(player.getDirectPermissions());
+        nodes.addAll(player.getTemporaryPermissions().keySet());
+        List<String> groups = player.getGroups().stream().map(GroupInterface::getName).collect(Collectors.toList());
+        return JsonQueryIndex.Entry.of(player.getName(), groups, nodes);
+    }
+
+    @NotNull
+    static JsonQueryIndex.Entry indexEntry(@NotNull JsonPlayerData data) {
+        Set<String> nodes = new HashSet<>();
+        if (data.directPermissions != null) {
+            nodes.addAll(data.directPermissions);
+        }
+        if (data.temporaryPermissions != null) {
+            nodes.addAll(data.temporaryPermissions.keySet());
+        }
+        Set<String> groups = new HashSet<>();
+        if (data.groupNames != null) {
+            groups.addAll(data.groupNames);
+        }
+        if (data.temporaryGroups != null) {
+            groups.addAll(data.temporaryGroups.keySet());
+        }
+        return JsonQueryIndex.Entry.of(data.name, groups, nodes);
+    }
+
+    /**
+     * Reads the index entry of a player from its file, which is what the index holds for a player
+     * that is not loaded
+     */
+    @NotNull
+    private JsonQueryIndex.Entry readIndexEntry(@NotNull UUID uuid) {
+        Path file = playerFile(uuid);
+        if (!Files.exists(file)) {
+            return JsonQueryIndex.Entry.EMPTY;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonPlayerData data = gson.fromJson(reader, JsonPlayerData.class);
+            return data != null ? indexEntry(data) : JsonQueryIndex.Entry.EMPTY;
+        } catch (Exception e) {
+            logger.warning("Failed to read player file " + file + " for the query index: " + e.getMessage());
+            return JsonQueryIndex.Entry.EMPTY;
+        }
+    }
+
+    private void indexGroup(@NotNull JsonGroupImpl group) {
+        queryIndex.indexGroup(group.getName(), group.getPermissions());
+    }
+
+    /**
+     * Applies a replayed record: player records straight to their files, group records to the replay.
+     * A player record that cannot be written is collected into {@code unwritten} for the next save instead.
+     * @return false if the record could not be applied and was queued
+     */
+    private boolean applyJournalRecord(@NotNull JsonJournal.Record record, @NotNull GroupReplay groupReplay,
+                                       @NotNull Map<UUID, JsonPlayerData> unwritten) {
+        switch (record.type) {
+            case PLAYER -> {
+                if (record.player == null || record.player.uuid == null) {
+                    return true;
+                }
+                UUID uuid = record.player.uuid;
+                queryIndex.updatePlayer(uuid, replayedEntry(uuid, unwritten), indexEntry(record.player));
+                pendingFileDeletes.remove(uuid);
+                unwritten.remove(uuid);
+                try {
+                    writePlayerData(record.player);
+                    return true;
+                } catch (IOException e) {
+                    logger.severe("Failed to apply journal record of player " + record.player.uuid + ": " + e.getMessage());
+                    e.printStackTrace();
+                    unwritten.put(record.player.uuid, record.player);
+                    return false;
+                }
+            }
+            case PLAYER_DELETED -> {
+                if (record.uuid == null) {
+                    return true;
+                }
+                queryIndex.updatePlayer(record.uuid, replayedEntry(record.uuid, unwritten), JsonQueryIndex.Entry.EMPTY);
+                unwritten.remove(record.uuid);
+                try {
+                    Files.deleteIfExists(playerFile(record.uuid));
+                    return true;
+                } catch (IOException e) {
+                    logger.severe("Failed to apply journal deletion of player " + record.uuid + ": " + e.getMessage());
+                    pendingFileDeletes.add(record.uuid);
+                    return false;
+                }
+            }
+            case GROUP -> {
+                if (record.groupId != null && record.group != null) {
+                    groupReplay.changes.put(record.groupId, record.group);
+                    if (record.group.name != null) {
+                        groupReplay.journaledNames.add(record.group.name.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            case GROUP_DELETED -> {
+                if (record.groupId != null) {
+                    groupReplay.changes.put(record.groupId, null);
+                }
+            }
+            case GROUPS -> {
+                if (record.groups != null) {
+                    groupReplay.base = record.groups;
+                    groupReplay.changes.clear();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets what the index holds for a player at the current point of the replay: the last record that
+     * could not be written, nothing after a deletion, and otherwise its file
+     */
+    @NotNull
+    private JsonQueryIndex.Entry replayedEntry(@NotNull UUID uuid, @NotNull Map<UUID, JsonPlayerData> unwritten) {
+        JsonPlayerData pending = unwritten.get(uuid);
+        if (pending != null) {
+            return indexEntry(pending);
+        }
+        return pendingFileDeletes.contains(uuid) ? JsonQueryIndex.Entry.EMPTY : readIndexEntry(uuid);
+    }
+
+    /**
+     * Group changes gathered from the journal, applied onto groups.json once every record is read
+     */
+    private static final class GroupReplay {
+
+        // Full group list of a record from before per-group records, replaces groups.json
+        private List<JsonGroupData> base;
+        // Latest data per group id in journal order, null for a deleted group
+        private final Map<Integer, JsonGroupData> changes = new LinkedHashMap<>();
+        // Every group name a journaled group record carried, lower-cased
+        private final Set<String> journaledNames = new HashSet<>();
+
+        private boolean isEmpty() {
+            return base == null && changes.isEmpty();
+        }
+
+        @NotNull
+        private List<JsonGroupData> apply(@Nullable List<JsonGroupData> snapshot) {
+            List<JsonGroupData> source = base != null ? base : snapshot != null ? snapshot : List.of();
+            Map<Integer, JsonGroupData> byId = new LinkedHashMap<>();
+            for (JsonGroupData data : source) {
+                byId.put(data.id, data);
+            }
+            changes.forEach((id, data) -> {
+                if (data != null) {
+                    byId.put(id, data);
+                } else {
+                    byId.remove(id);
+                }
+            });
+            return new ArrayList<>(byId.values());
+        }
+
+        /**
+         * Gets the lower-cased names of the groups the snapshot or the journal had and the replay drops
+         */
+        @NotNull
+        private Set<String> deletedNames(@Nullable List<JsonGroupData> snapshot) {
+            Set<String> names = new HashSet<>();
+            for (List<JsonGroupData> groups : Arrays.asList(snapshot, base)) {
+                if (groups != null) {
+                    groups.stream().filter(data -> data.name != null)
+                            .forEach(data -> names.add(data.name.toLowerCase(Locale.ROOT)));
+                }
+            }
+            names.addAll(journaledNames);
+            for (JsonGroupData data : apply(snapshot)) {
+                if (data.name != null) {
+                    names.remove(data.name.toLowerCase(Locale.ROOT));
+                }
+            }
+            return names;
+        }
+    }
+
+    @Nullable
+    private List<JsonGroupData> readGroupsFile() {
         if (!Files.exists(groupsFile)) {
             logger.info("Groups file does not exist, starting with empty groups");
-            return;
+            return null;
         }
 
-        try (FileReader reader = new FileReader(groupsFile.toFile())) {
-            Type listType = new TypeToken<List<JsonGroupData>>() {}.getType();
-            List<JsonGroupData> groupDataList = gson.fromJson(reader, listType);
+        try {
+            // Decoded out of order, the hierarchy is linked only once every group exists
+            List<JsonGroupData> groupDataList = Collections.synchronizedList(new ArrayList<>());
+            streamArray(groupsFile, JsonGroupData.class, groupDataList::add);
+            return groupDataList;
+        } catch (Exception e) {
+            logger.severe("Failed to load groups: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
 
+    private void loadGroups(@Nullable List<JsonGroupData> groupDataList) {
+        try {
             if (groupDataList != null) {
-                dataLock.writeLock().lock();
-                try {
+                synchronized (hierarchyLock) {
+                    // First pass: create every group, so parents can be resolved regardless of file order
+                    Map<JsonGroupImpl, JsonGroupData> loaded = new LinkedHashMap<>();
                     for (JsonGroupData data : groupDataList) {
                         JsonGroupImpl group = JsonGroupImpl.fromData(data, this);
-                        groupCache.put(group.getName().toLowerCase(), group);
-                        groupIdCache.put(group.getId(), group);
+                        loaded.put(group, data);
 
-                        if (group.getId() >= nextGroupId) {
-                            nextGroupId = group.getId() + 1;
-                        }
+                        nextGroupId.accumulateAndGet(group.getId() + 1, Math::max);
                     }
-                } finally {
-                    dataLock.writeLock().unlock();
+                    groupCatalog = groupCatalog.with(loaded.keySet());
+
+                    // Second pass: link the hierarchy and materialize every closure once
+                    loaded.forEach((group, data) -> group.linkParents(data.parentGroups));
+                    JsonGroupImpl.refreshInheritance(loaded.keySet());
                 }
                 logger.info("Loaded " + groupDataList.size() + " groups");
             }
@@ -718,39 +1284,100 @@ public class JsonStorage extends StorageModule {
         }
     }
 
-    private void loadPlayers() {
+    /**
+     * Splits a legacy players.json into one file per player, streaming so the whole list is never in memory
+     */
+    private void migrateLegacyPlayers() {
         if (!Files.exists(playersFile)) {
-            logger.info("Players file does not exist, starting with empty players");
             return;
         }
 
-        try (FileReader reader = new FileReader(playersFile.toFile())) {
-            Type listType = new TypeToken<List<JsonPlayerData>>() {}.getType();
-            List<JsonPlayerData> playerDataList = gson.fromJson(reader, listType);
-
-            if (playerDataList != null) {
-                dataLock.writeLock().lock();
+        AtomicInteger migrated = new AtomicInteger();
+        try {
+            streamArray(playersFile, JsonPlayerData.class, data -> {
+                if (data.uuid == null) {
+                    return;
+                }
                 try {
-                    for (JsonPlayerData data : playerDataList) {
-                        JsonPlayerImpl player = JsonPlayerImpl.fromData(data, this);
-                        playerCache.put(player.getUuid(), player);
-                    }
-                } finally {
-                    dataLock.writeLock().unlock();
+                    writePlayerData(data);
+                    migrated.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-                logger.info("Loaded " + playerDataList.size() + " players");
-            }
+            });
         } catch (Exception e) {
-            logger.severe("Failed to load players: " + e.getMessage());
+            logger.severe("Failed to migrate players.json, keeping it for the next start: " + e.getMessage());
             e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(playersFile, dataDirectory.resolve(PLAYERS_FILE + MIGRATED_SUFFIX),
+                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warning("Failed to rename migrated players.json: " + e.getMessage());
+        }
+        logger.info("Migrated " + migrated.get() + " players from players.json to per-player files");
+    }
+
+    /**
+     * Streams a JSON array without holding all of it in memory. One thread tokenizes the elements and
+     * hands them over in batches to one worker per core, which decode and handle them; only a few batches
+     * per worker are buffered at any time.
+     * @param handler called concurrently for every decoded element
+     * @throws Exception the first failure of the tokenizer or of any batch
+     */
+    private <T> void streamArray(@NotNull Path file, @NotNull Class<T> type, @NotNull Consumer<T> handler) throws Exception {
+        int workers = Runtime.getRuntime().availableProcessors();
+        ExecutorService decoders = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "Permify-JsonLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore buffered = new Semaphore(workers * 2);
+        List<Future<?>> batches = new ArrayList<>();
+
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            List<JsonElement> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+            while (reader.hasNext()) {
+                batch.add(JsonParser.parseReader(reader));
+                if (batch.size() == LOAD_BATCH_SIZE || !reader.hasNext()) {
+                    List<JsonElement> elements = batch;
+                    batch = new ArrayList<>(LOAD_BATCH_SIZE);
+
+                    // Back-pressure: wait for a worker instead of tokenizing the whole file ahead
+                    buffered.acquire();
+                    batches.add(decoders.submit(() -> {
+                        try {
+                            for (JsonElement element : elements) {
+                                T value = gson.fromJson(element, type);
+                                if (value != null) {
+                                    handler.accept(value);
+                                }
+                            }
+                        } finally {
+                            buffered.release();
+                        }
+                    }));
+                }
+            }
+            reader.endArray();
+
+            for (Future<?> future : batches) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            decoders.shutdownNow();
         }
     }
 
     private void createDefaultGroup() {
-        dataLock.writeLock().lock();
-        try {
-            if (groupCache.isEmpty()) {
-                JsonGroupImpl defaultGroup = new JsonGroupImpl(nextGroupId++, "default", this);
+        synchronized (hierarchyLock) {
+            if (groupCatalog.isEmpty()) {
+                JsonGroupImpl defaultGroup = new JsonGroupImpl(nextGroupId.getAndIncrement(), "default", this);
                 defaultGroup.setDisplayName("Default");
                 defaultGroup.setPrefix("§7");
                 defaultGroup.setSuffix("");
@@ -760,61 +1387,291 @@ public class JsonStorage extends StorageModule {
                 defaultGroup.setCreatedAt(LocalDateTime.now());
                 defaultGroup.setLastModified(LocalDateTime.now());
 
-                groupCache.put("default", defaultGroup);
-                groupIdCache.put(defaultGroup.getId(), defaultGroup);
-                isDirty = true;
+                groupCatalog = groupCatalog.with(defaultGroup);
+                markGroupDirty(defaultGroup);
 
                 logger.info("Created default group");
             }
-        } finally {
-            dataLock.writeLock().unlock();
         }
     }
 
-    private void saveAllData() {
-        if (!isDirty) {
+    /**
+     * Writes a snapshot of everything changed since the last one and compacts the journal
+     * @return true if the snapshot is complete
+     */
+    private boolean saveAllData() {
+        // One save at a time: the auto-save timer, maintenance, loading and stop all get here
+        synchronized (saveLock) {
+            if (!hasUnsavedChanges() && !queryIndex.hasPendingChanges()) {
+                return true;
+            }
+
+            // Changes journaled from here on belong to the next snapshot
+            List<Path> sealedSegments;
+            try {
+                sealedSegments = journal != null ? journal.rotate() : List.of();
+            } catch (IOException e) {
+                logger.severe("Failed to rotate journal: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+
+            // Nothing is cleared up front, each save acknowledges the versions it wrote
+            boolean saveGroupsNow = groupsVersion.isDirty();
+            try {
+                if (saveGroupsNow) {
+                    saveGroups();
+                }
+                int written = savePlayers();
+                // The index goes with the snapshot, the sealed segments replay whatever it misses
+                queryIndex.flush();
+                logger.fine("Saved " + written + " changed players" + (saveGroupsNow ? " and all groups" : ""));
+            } catch (Exception e) {
+                logger.severe("Failed to save data: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+
+            // The snapshot now contains every change of the sealed segments
+            if (journal != null) {
+                journal.deleteSegments(sealedSegments);
+            }
+            return true;
+        }
+    }
+
+    private void saveGroups() throws IOException {
+        // Copy under the hierarchy lock for a consistent cut of the groups, loads do not take it.
+        // Versions are captured before the copy, a change racing with it is saved again next time
+        long fileVersion = groupsVersion.current();
+        List<JsonGroupImpl> groups;
+        long[] versions;
+        List<JsonGroupData> groupDataList = new ArrayList<>();
+        synchronized (hierarchyLock) {
+            groups = new ArrayList<>(groupCatalog.groups());
+            versions = new long[groups.size()];
+            for (int i = 0; i < groups.size(); i++) {
+                versions[i] = groups.get(i).getPersistence().current();
+                groupDataList.add(groups.get(i).toData());
+            }
+        }
+
+        writeAtomically(groupsFile, writer -> {
+            writer.beginArray();
+            for (JsonGroupData data : groupDataList) {
+                gson.toJson(data, JsonGroupData.class, writer);
+            }
+            writer.endArray();
+        });
+
+        for (int i = 0; i < groups.size(); i++) {
+            groups.get(i).getPersistence().acknowledge(versions[i]);
+        }
+        groupsVersion.acknowledge(fileVersion);
+    }
+
+    /**
+     * Writes the players changed since the last save, each to its own file
+     * @return the number of players written
+     * @throws IOException if any player could not be written, those stay marked for the next save
+     */
+    private int savePlayers() throws IOException {
+        // Deletions replayed from the journal that did not reach the disk at startup
+        for (UUID uuid : pendingFileDeletes) {
+            Files.deleteIfExists(playerFile(uuid));
+            pendingFileDeletes.remove(uuid);
+        }
+
+        // Copy the changed players, then write them. A change made after a player is unmarked marks it
+        // again, so each copy only has to be consistent for its own player, not across players
+        List<PlayerWrite> changed = new ArrayList<>();
+        Iterator<UUID> iterator = dirtyPlayers.iterator();
+        while (iterator.hasNext()) {
+            UUID uuid = iterator.next();
+            iterator.remove();
+
+            // Players evicted in the meantime were written on eviction, clean ones have nothing to write
+            JsonPlayerImpl player = playerCache.peek(uuid);
+            if (player != null && player.getPersistence().isDirty()) {
+                long version = player.getPersistence().current();
+                changed.add(new PlayerWrite(player, version, player.toData()));
+            }
+        }
+
+        int written = 0;
+        int failed = 0;
+        for (PlayerWrite write : changed) {
+            try {
+                writePlayerData(write.data());
+                write.player().getPersistence().acknowledge(write.version());
+                written++;
+            } catch (IOException e) {
+                dirtyPlayers.add(write.player().getUuid());
+                failed++;
+                logger.severe("Failed to save player " + write.data().name + ": " + e.getMessage());
+            }
+        }
+
+        if (failed > 0) {
+            throw new IOException("Failed to save " + failed + " players");
+        }
+        return written;
+    }
+
+    private record PlayerWrite(@NotNull JsonPlayerImpl player, long version, @NotNull JsonPlayerData data) {
+    }
+
+    // ===================================================================================================
+    // PLAYER FILES
+    // ===================================================================================================
+
+    /**
+     * Gets a player's file, sharded by the first two hex digits of the UUID (players/ab/ab12...json)
+     * so no directory grows past a few thousand entries
+     */
+    @NotNull
+    private Path playerFile(@NotNull UUID uuid) {
+        String name = uuid.toString();
+        return playersDirectory.resolve(name.substring(0, 2)).resolve(name + PLAYER_FILE_SUFFIX);
+    }
+
+    @NotNull
+    private List<Path> listPlayerShards() {
+        try (var entries = Files.list(playersDirectory)) {
+            return entries.filter(Files::isDirectory).collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warning("Failed to list player shards: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Moves player files written before sharding (players/<uuid>.json) into their shard
+     */
+    private void shardFlatPlayerFiles() {
+        List<Path> flatFiles;
+        try (var entries = Files.list(playersDirectory)) {
+            flatFiles = entries.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warning("Failed to list player files: " + e.getMessage());
             return;
         }
 
+        int moved = 0;
+        for (Path file : flatFiles) {
+            UUID uuid = parsePlayerFileName(file);
+            if (uuid == null) {
+                continue;
+            }
+            try {
+                Path target = playerFile(uuid);
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                moved++;
+            } catch (IOException e) {
+                logger.warning("Failed to move player file " + file + ": " + e.getMessage());
+            }
+        }
+        if (moved > 0) {
+            logger.info("Moved " + moved + " player files into shards");
+        }
+    }
+
+    @Nullable
+    private static UUID parsePlayerFileName(@NotNull Path file) {
+        String fileName = file.getFileName().toString();
+        if (!fileName.endsWith(PLAYER_FILE_SUFFIX)) {
+            return null;
+        }
         try {
-            saveGroups();
-            savePlayers();
-            isDirty = false;
-            logger.fine("Saved all data to JSON files");
+            return UUID.fromString(fileName.substring(0, fileName.length() - PLAYER_FILE_SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a player that is not in the cache from its file
+     * @return the player, or null if it has never been saved
+     */
+    @Nullable
+    private JsonPlayerImpl readPlayerFile(@NotNull UUID uuid) {
+        Path file = playerFile(uuid);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, java.nio.charset.StandardCharsets.UTF_8)) {
+            JsonPlayerData data = gson.fromJson(reader, JsonPlayerData.class);
+            return data != null ? JsonPlayerImpl.fromData(data, this) : null;
         } catch (Exception e) {
-            logger.severe("Failed to save data: " + e.getMessage());
+            logger.severe("Failed to load player " + uuid + ": " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
-    private void saveGroups() throws IOException {
-        dataLock.readLock().lock();
+    private void writePlayerData(@NotNull JsonPlayerData data) throws IOException {
+        writeAtomically(playerFile(data.uuid), writer -> gson.toJson(data, JsonPlayerData.class, writer));
+    }
+
+    /**
+     * Streams JSON into a temp file next to the target, forces it to disk and renames it over the target,
+     * so a crash leaves either the old or the new file but never a truncated one
+     */
+    static void writeAtomically(@NotNull Path target, @NotNull JsonWriteAction action) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMP_SUFFIX);
         try {
-            List<JsonGroupData> groupDataList = groupCache.values().stream()
-                    .map(JsonGroupImpl::toData)
-                    .collect(Collectors.toList());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 JsonWriter writer = new JsonWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)))) {
+                action.write(writer);
+                writer.flush();
+                channel.force(true);
+            }
 
-            try (FileWriter writer = new FileWriter(groupsFile.toFile())) {
-                gson.toJson(groupDataList, writer);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
             }
         } finally {
-            dataLock.readLock().unlock();
+            Files.deleteIfExists(temp);
         }
     }
 
-    private void savePlayers() throws IOException {
-        dataLock.readLock().lock();
+    @FunctionalInterface
+    interface JsonWriteAction {
+        void write(@NotNull JsonWriter writer) throws IOException;
+    }
+
+    private boolean deletePlayerFile(@NotNull UUID uuid) {
         try {
-            List<JsonPlayerData> playerDataList = playerCache.values().stream()
-                    .map(JsonPlayerImpl::toData)
-                    .collect(Collectors.toList());
+            return Files.deleteIfExists(playerFile(uuid));
+        } catch (IOException e) {
+            logger.warning("Failed to delete player file of " + uuid + ": " + e.getMessage());
+            return false;
+        }
+    }
 
-            try (FileWriter writer = new FileWriter(playersFile.toFile())) {
-                gson.toJson(playerDataList, writer);
-            }
-        } finally {
-            dataLock.readLock().unlock();
+    /**
+     * Writes a player about to leave the cache, so no change is lost when it is loaded again
+     * @return false if the player could not be written and has to stay cached
+     */
+    private boolean onPlayerEvicted(@NotNull JsonPlayerImpl player) {
+        if (!player.getPersistence().isDirty()) {
+            return true;
+        }
+        try {
+            long version = player.getPersistence().current();
+            writePlayerData(player.toData());
+            player.getPersistence().acknowledge(version);
+        } catch (IOException e) {
+            logger.severe("Failed to save evicted player " + player.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
         }
+        return true;
     }
 
     private void createBackup() {
@@ -838,16 +1695,19 @@ public class JsonStorage extends StorageModule {
         autoSaveTimer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
-                if (isDirty) {
+                if (hasUnsavedChanges()) {
                     saveAllData();
                 }
             }
         }, 30000, 30000);
     }
 
-    private Gson createGson() {
+    /**
+     * Creates the compact Gson used for every file and journal record of this storage
+     */
+    @NotNull
+    static Gson createGson() {
         return new GsonBuilder()
-                .setPrettyPrinting()
                 .setDateFormat("yyyy-MM-dd HH:mm:ss")
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
                 .registerTypeAdapter(NamedTextColor.class, new NamedTextColorAdapter())
@@ -935,8 +1795,8 @@ class JsonPlayerImpl implements PlayerInterface {
     private final UUID uuid;
     private String name;
 
-    // Permissions
-    private final Set<String> directPermissions = ConcurrentHashMap.newKeySet();
+    // Permissions (interned through the shared permission dictionary)
+    private final PermissionNodeSet directPermissions = new PermissionNodeSet();
     private final Map<String, LocalDateTime> temporaryPermissions = new ConcurrentHashMap<>();
 
     // Groups
@@ -944,8 +1804,8 @@ class JsonPlayerImpl implements PlayerInterface {
     private final Map<GroupInterface, LocalDateTime> temporaryGroups = new ConcurrentHashMap<>();
 
     // Context-specific permissions
-    private final Map<String, Set<String>> serverPermissions = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> worldPermissions = new ConcurrentHashMap<>();
+    private final Map<String, PermissionNodeSet> serverPermissions = new ConcurrentHashMap<>();
+    private final Map<String, PermissionNodeSet> worldPermissions = new ConcurrentHashMap<>();
 
     // Display properties
     private String customPrefix;
@@ -958,6 +1818,15 @@ class JsonPlayerImpl implements PlayerInterface {
     private LocalDateTime lastModified;
     private long playtimeSeconds;
 
+    // Modification version, acknowledged by the storage once written
+    private final EntityVersion persistence = new EntityVersion();
+
+    // Set once the player left the cache, a change after that has to bring it back
+    private volatile boolean evicted;
+
+    // What the query index holds for this player, replaced under the player's lock on every change
+    private volatile JsonQueryIndex.Entry indexed = JsonQueryIndex.Entry.EMPTY;
+
     // Storage reference
     private final JsonStorage storage;
 
@@ -1007,30 +1876,25 @@ class JsonPlayerImpl implements PlayerInterface {
     @Override
     @NotNull
     public Set<String> getDirectPermissions() {
-        return Collections.unmodifiableSet(new HashSet<>(directPermissions));
+        return directPermissions.snapshot();
     }
 
     @Override
     @NotNull
     public Set<String> getAllPermissions() {
-        Set<String> allPerms = new HashSet<>(directPermissions);
+        PermissionSet.Builder allPerms = new PermissionSet.Builder().addAll(directPermissions);
 
-        // Add group permissions (ordered by priority)
-        List<GroupInterface> sortedGroups = groups.stream()
-                .sorted(Comparator.comparingInt(GroupInterface::getPriority).reversed())
-                .collect(Collectors.toList());
-
-        for (GroupInterface group : sortedGroups) {
+        // Add group permissions (a union, so priority order does not matter here)
+        for (GroupInterface group : groups) {
             allPerms.addAll(group.getAllPermissions());
         }
 
-        // Add temporary permissions (check expiry)
-        LocalDateTime now = LocalDateTime.now();
-        temporaryPermissions.entrySet().stream()
-                .filter(entry -> entry.getValue().isAfter(now))
-                .forEach(entry -> allPerms.add(entry.getKey()));
+        // Add temporary permissions (removed at their deadline, so every entry is live)
+        for (String permission : temporaryPermissions.keySet()) {
+            allPerms.add(permission);
+        }
 
-        return Collections.unmodifiableSet(allPerms);
+        return allPerms.build();
     }
 
     @Override
@@ -1041,8 +1905,7 @@ class JsonPlayerImpl implements PlayerInterface {
         }
 
         // Check temporary permissions
-        LocalDateTime expiry = temporaryPermissions.get(permission);
-        if (expiry != null && expiry.isAfter(LocalDateTime.now())) {
+        if (temporaryPermissions.containsKey(permission)) {
             return true;
         }
 
@@ -1062,6 +1925,7 @@ class JsonPlayerImpl implements PlayerInterface {
         boolean added = directPermissions.add(permission);
         if (added) {
             updateLastModified();
+            publishInvalidation("permission added");
         }
         return added;
     }
@@ -1071,6 +1935,7 @@ class JsonPlayerImpl implements PlayerInterface {
         boolean removed = directPermissions.remove(permission);
         if (removed) {
             updateLastModified();
+            publishInvalidation("permission removed");
         }
         return removed;
     }
@@ -1079,17 +1944,15 @@ class JsonPlayerImpl implements PlayerInterface {
     public boolean addTemporaryPermission(@NotNull String permission, long durationSeconds) {
         LocalDateTime expiry = LocalDateTime.now().plusSeconds(durationSeconds);
         temporaryPermissions.put(permission, expiry);
+        schedulePermissionExpiry(permission, expiry);
         updateLastModified();
+        publishInvalidation("temporary permission added");
         return true;
     }
 
     @Override
     @NotNull
     public Map<String, LocalDateTime> getTemporaryPermissions() {
-        // Clean expired permissions
-        LocalDateTime now = LocalDateTime.now();
-        temporaryPermissions.entrySet().removeIf(entry -> entry.getValue().isBefore(now));
-
         return Collections.unmodifiableMap(new HashMap<>(temporaryPermissions));
     }
 
@@ -1127,6 +1990,7 @@ class JsonPlayerImpl implements PlayerInterface {
         if (!groups.contains(group)) {
             groups.add(group);
             updateLastModified();
+            publishInvalidation("group added");
             return true;
         }
         return false;
@@ -1135,8 +1999,12 @@ class JsonPlayerImpl implements PlayerInterface {
     @Override
     public boolean removeGroup(@NotNull GroupInterface group) {
         boolean removed = groups.remove(group);
+        if (temporaryGroups.remove(group) != null) {
+            ExpiryScheduler.cancel(JsonStorage.EXPIRY_NAMESPACE, uuid, groupExpiryKey(group));
+        }
         if (removed) {
             updateLastModified();
+            publishInvalidation("group removed");
         }
         return removed;
     }
@@ -1146,13 +2014,15 @@ class JsonPlayerImpl implements PlayerInterface {
         groups.clear();
         groups.add(group);
         updateLastModified();
+        publishInvalidation("primary group set");
     }
 
     @Override
     public boolean addTemporaryGroup(@NotNull GroupInterface group, long durationSeconds) {
         LocalDateTime expiry = LocalDateTime.now().plusSeconds(durationSeconds);
-        temporaryGroups.put(group, expiry);
         addGroup(group);
+        temporaryGroups.put(group, expiry);
+        scheduleGroupExpiry(group, expiry);
         updateLastModified();
         return true;
     }
@@ -1160,16 +2030,6 @@ class JsonPlayerImpl implements PlayerInterface {
     @Override
     @NotNull
     public Map<GroupInterface, LocalDateTime> getTemporaryGroups() {
-        // Clean expired groups
-        LocalDateTime now = LocalDateTime.now();
-        temporaryGroups.entrySet().removeIf(entry -> {
-            if (entry.getValue().isBefore(now)) {
-                removeGroup(entry.getKey());
-                return true;
-            }
-            return false;
-        });
-
         return Collections.unmodifiableMap(new HashMap<>(temporaryGroups));
     }
 
@@ -1269,6 +2129,7 @@ class JsonPlayerImpl implements PlayerInterface {
 
     void setFirstJoin(@Nullable LocalDateTime firstJoin) {
         this.firstJoin = firstJoin;
+        storage.markPlayerDirty(this);
     }
 
     @Override
@@ -1279,6 +2140,7 @@ class JsonPlayerImpl implements PlayerInterface {
 
     void setLastSeen(@Nullable LocalDateTime lastSeen) {
         this.lastSeen = lastSeen;
+        storage.markPlayerDirty(this);
     }
 
     @Override
@@ -1308,35 +2170,35 @@ class JsonPlayerImpl implements PlayerInterface {
     @Override
     @NotNull
     public Set<String> getServerPermissions(@NotNull String serverName) {
-        return Collections.unmodifiableSet(
-                serverPermissions.getOrDefault(serverName, Collections.emptySet())
-        );
+        PermissionNodeSet perms = serverPermissions.get(serverName);
+        return perms != null ? perms.snapshot() : PermissionSet.EMPTY;
     }
 
     @Override
     @NotNull
     public Set<String> getWorldPermissions(@NotNull String worldName) {
-        return Collections.unmodifiableSet(
-                worldPermissions.getOrDefault(worldName, Collections.emptySet())
-        );
+        PermissionNodeSet perms = worldPermissions.get(worldName);
+        return perms != null ? perms.snapshot() : PermissionSet.EMPTY;
     }
 
     @Override
     public boolean addServerPermission(@NotNull String serverName, @NotNull String permission) {
-        Set<String> perms = serverPermissions.computeIfAbsent(serverName, k -> ConcurrentHashMap.newKeySet());
+        Set<String> perms = serverPermissions.computeIfAbsent(serverName, k -> new PermissionNodeSet());
         boolean added = perms.add(permission);
         if (added) {
             updateLastModified();
+            publishInvalidation("server permission added");
         }
         return added;
     }
 
     @Override
     public boolean addWorldPermission(@NotNull String worldName, @NotNull String permission) {
-        Set<String> perms = worldPermissions.computeIfAbsent(worldName, k -> ConcurrentHashMap.newKeySet());
+        Set<String> perms = worldPermissions.computeIfAbsent(worldName, k -> new PermissionNodeSet());
         boolean added = perms.add(permission);
         if (added) {
             updateLastModified();
+            publishInvalidation("world permission added");
         }
         return added;
     }
@@ -1347,8 +2209,7 @@ class JsonPlayerImpl implements PlayerInterface {
 
     @Override
     public void refreshPermissions() {
-        getTemporaryPermissions();
-        getTemporaryGroups();
+        removeExpired(LocalDateTime.now());
     }
 
     @Override
@@ -1380,6 +2241,8 @@ class JsonPlayerImpl implements PlayerInterface {
             this.firstJoin = other.firstJoin;
             this.lastSeen = other.lastSeen;
             this.playtimeSeconds = other.playtimeSeconds;
+            scheduleExpiries();
+            publishInvalidation("reloaded");
         }
     }
 
@@ -1394,7 +2257,9 @@ class JsonPlayerImpl implements PlayerInterface {
         customPrefix = null;
         customSuffix = null;
         customColor = null;
+        ExpiryScheduler.cancelAll(JsonStorage.EXPIRY_NAMESPACE, uuid);
         updateLastModified();
+        publishInvalidation("reset");
     }
 
     @Override
@@ -1431,6 +2296,28 @@ class JsonPlayerImpl implements PlayerInterface {
     // EXTERNAL MODULE SERIALIZATION
     // ===================================================================================================
 
+    @NotNull
+    EntityVersion getPersistence() {
+        return persistence;
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void setEvicted(boolean evicted) {
+        this.evicted = evicted;
+    }
+
+    @NotNull
+    JsonQueryIndex.Entry getIndexed() {
+        return indexed;
+    }
+
+    void setIndexed(@NotNull JsonQueryIndex.Entry indexed) {
+        this.indexed = indexed;
+    }
+
     public JsonStorage.JsonPlayerData toData() {
         JsonStorage.JsonPlayerData data = new JsonStorage.JsonPlayerData();
         data.uuid = this.uuid;
@@ -1460,6 +2347,8 @@ class JsonPlayerImpl implements PlayerInterface {
 
     public static JsonPlayerImpl fromData(@NotNull JsonStorage.JsonPlayerData data, @NotNull JsonStorage storage) {
         JsonPlayerImpl player = new JsonPlayerImpl(data.uuid, data.name, storage);
+        // Indexed as stored, the index holds a player's file until the player changes
+        player.indexed = JsonStorage.indexEntry(data);
 
         if (data.directPermissions != null) {
             player.directPermissions.addAll(data.directPermissions);
@@ -1489,15 +2378,13 @@ class JsonPlayerImpl implements PlayerInterface {
 
         if (data.serverPermissions != null) {
             data.serverPermissions.forEach((server, perms) -> {
-                player.serverPermissions.put(server, ConcurrentHashMap.newKeySet());
-                player.serverPermissions.get(server).addAll(perms);
+                player.serverPermissions.put(server, new PermissionNodeSet(perms));
             });
         }
 
         if (data.worldPermissions != null) {
             data.worldPermissions.forEach((world, perms) -> {
-                player.worldPermissions.put(world, ConcurrentHashMap.newKeySet());
-                player.worldPermissions.get(world).addAll(perms);
+                player.worldPermissions.put(world, new PermissionNodeSet(perms));
             });
         }
 
@@ -1510,6 +2397,9 @@ class JsonPlayerImpl implements PlayerInterface {
         player.lastSeen = data.lastSeen;
         player.playtimeSeconds = data.playtimeSeconds;
 
+        // Entries that expired while offline fire immediately
+        player.scheduleExpiries();
+
         return player;
     }
 
@@ -1517,8 +2407,80 @@ class JsonPlayerImpl implements PlayerInterface {
     // PRIVATE HELPER METHODS
     // ===================================================================================================
 
+    private void publishInvalidation(@NotNull String reason) {
+        PermissionInvalidationBus.publish(PermissionInvalidation.player(uuid, reason));
+    }
+
+    /**
+     * Removes temporary entries whose deadline has passed
+     * @return the number of entries removed
+     */
+    int removeExpired(@NotNull LocalDateTime now) {
+        int removed = 0;
+        for (Map.Entry<String, LocalDateTime> entry : temporaryPermissions.entrySet()) {
+            if (!entry.getValue().isAfter(now) && expirePermission(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        for (Map.Entry<GroupInterface, LocalDateTime> entry : temporaryGroups.entrySet()) {
+            if (!entry.getValue().isAfter(now) && expireGroup(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Replaces every expiry schedule of this player with one per current temporary entry
+     */
+    void scheduleExpiries() {
+        ExpiryScheduler.cancelAll(JsonStorage.EXPIRY_NAMESPACE, uuid);
+        temporaryPermissions.forEach(this::schedulePermissionExpiry);
+        temporaryGroups.forEach(this::scheduleGroupExpiry);
+    }
+
+    private void schedulePermissionExpiry(@NotNull String permission, @NotNull LocalDateTime expiry) {
+        ExpiryScheduler.schedule(JsonStorage.EXPIRY_NAMESPACE, uuid, "permission:" + permission,
+                ExpiryScheduler.toEpochMillis(expiry), () -> expirePermission(permission, expiry));
+    }
+
+    private void scheduleGroupExpiry(@NotNull GroupInterface group, @NotNull LocalDateTime expiry) {
+        ExpiryScheduler.schedule(JsonStorage.EXPIRY_NAMESPACE, uuid, groupExpiryKey(group),
+                ExpiryScheduler.toEpochMillis(expiry), () -> expireGroup(group, expiry));
+    }
+
+    @NotNull
+    private static String groupExpiryKey(@NotNull GroupInterface group) {
+        return "group:" + group.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private boolean expirePermission(@NotNull String permission, @NotNull LocalDateTime expiry) {
+        // Only the entry this deadline belongs to, a renewed entry keeps its new deadline
+        if (!temporaryPermissions.remove(permission, expiry)) {
+            return false;
+        }
+        ExpiryScheduler.cancel(JsonStorage.EXPIRY_NAMESPACE, uuid, "permission:" + permission);
+        storage.markPlayerDirty(this);
+        publishInvalidation("temporary permission expired");
+        return true;
+    }
+
+    private boolean expireGroup(@NotNull GroupInterface group, @NotNull LocalDateTime expiry) {
+        if (!temporaryGroups.remove(group, expiry)) {
+            return false;
+        }
+        ExpiryScheduler.cancel(JsonStorage.EXPIRY_NAMESPACE, uuid, groupExpiryKey(group));
+        if (groups.remove(group)) {
+            updateLastModified();
+            publishInvalidation("temporary group expired");
+        }
+        storage.markPlayerDirty(this);
+        return true;
+    }
+
     private void updateLastModified() {
         this.lastModified = LocalDateTime.now();
+        storage.markPlayerDirty(this);
     }
 
     private boolean hasWildcardPermission(@NotNull String permission) {
@@ -1560,13 +2522,19 @@ class JsonGroupImpl implements GroupInterface {
     private String displayName;
     private int priority;
 
-    // Permissions
-    private final Set<String> permissions = ConcurrentHashMap.newKeySet();
+    // Permissions (interned through the shared permission dictionary)
+    private final PermissionNodeSet permissions = new PermissionNodeSet();
 
     // Group hierarchy
     private final List<GroupInterface> parentGroups = new CopyOnWriteArrayList<>();
     private final List<GroupInterface> childGroups = new CopyOnWriteArrayList<>();
 
+    // Materialized closure of own and inherited permissions, maintained on every change
+    private volatile PermissionSnapshot closure = PermissionSnapshot.EMPTY;
+
+    // Ids of every transitive parent group; replaced, never mutated, once published
+    private volatile BitSet ancestors = new BitSet();
+
     // Display properties
     private String prefix;
     private String suffix;
@@ -1578,6 +2546,9 @@ class JsonGroupImpl implements GroupInterface {
     private LocalDateTime createdAt;
     private LocalDateTime lastModified;
 
+    // Modification version, acknowledged by the storage once written
+    private final EntityVersion persistence = new EntityVersion();
+
     // Storage reference
     private final JsonStorage storage;
 
@@ -1677,41 +2648,27 @@ class JsonGroupImpl implements GroupInterface {
     @Override
     @NotNull
     public Set<String> getPermissions() {
-        return Collections.unmodifiableSet(new HashSet<>(permissions));
+        return permissions.snapshot();
     }
 
     @Override
     @NotNull
     public Set<String> getAllPermissions() {
-        Set<String> allPerms = new HashSet<>(permissions);
-
-        for (GroupInterface parent : parentGroups) {
-            allPerms.addAll(parent.getAllPermissions());
-        }
-
-        return Collections.unmodifiableSet(allPerms);
+        return closure.getPermissions();
     }
 
     @Override
     public boolean hasPermission(@NotNull String permission) {
-        if (permissions.contains(permission)) {
-            return true;
-        }
-
-        for (GroupInterface parent : parentGroups) {
-            if (parent.hasPermission(permission)) {
-                return true;
-            }
-        }
-
-        return hasWildcardPermission(permission);
+        return closure.hasPermission(permission);
     }
 
     @Override
     public boolean addPermission(@NotNull String permission) {
         boolean added = permissions.add(permission);
         if (added) {
+            refreshInheritance();
             updateLastModified();
+            publishInvalidation("permission added");
         }
         return added;
     }
@@ -1720,7 +2677,9 @@ class JsonGroupImpl implements GroupInterface {
     public boolean removePermission(@NotNull String permission) {
         boolean removed = permissions.remove(permission);
         if (removed) {
+            refreshInheritance();
             updateLastModified();
+            publishInvalidation("permission removed");
         }
         return removed;
     }
@@ -1743,46 +2702,58 @@ class JsonGroupImpl implements GroupInterface {
 
     @Override
     public boolean addParentGroup(@NotNull GroupInterface group) {
-        if (group == this || inheritsFrom(group) || group.inheritsFrom(this)) {
-            return false;
-        }
+        synchronized (storage.getHierarchyLock()) {
+            if (group == this || inheritsFrom(group) || group.inheritsFrom(this)) {
+                return false;
+            }
 
-        if (!parentGroups.contains(group)) {
-            parentGroups.add(group);
-            if (group instanceof JsonGroupImpl) {
-                ((JsonGroupImpl) group).childGroups.add(this);
+            if (!parentGroups.contains(group)) {
+                parentGroups.add(group);
+                if (group instanceof JsonGroupImpl) {
+                    ((JsonGroupImpl) group).childGroups.add(this);
+                }
+                refreshInheritance();
+                updateLastModified();
+                publishInvalidation("parent added");
+                return true;
             }
-            updateLastModified();
-            return true;
+            return false;
         }
-        return false;
     }
 
     @Override
     public boolean removeParentGroup(@NotNull GroupInterface group) {
-        boolean removed = parentGroups.remove(group);
-        if (removed) {
-            if (group instanceof JsonGroupImpl) {
-                ((JsonGroupImpl) group).childGroups.remove(this);
+        synchronized (storage.getHierarchyLock()) {
+            boolean removed = parentGroups.remove(group);
+            if (removed) {
+                if (group instanceof JsonGroupImpl) {
+                    ((JsonGroupImpl) group).childGroups.remove(this);
+                }
+                refreshInheritance();
+                updateLastModified();
+                publishInvalidation("parent removed");
             }
-            updateLastModified();
+            return removed;
         }
-        return removed;
     }
 
-    @Override
-    public boolean inheritsFrom(@NotNull GroupInterface group) {
-        if (parentGroups.contains(group)) {
-            return true;
-        }
-
-        for (GroupInterface parent : parentGroups) {
-            if (parent.inheritsFrom(group)) {
-                return true;
+    /**
+     * Drops this deleted group from the child lists of its parents, its own parent list is kept as it was
+     */
+    void detachFromParents() {
+        synchronized (storage.getHierarchyLock()) {
+            for (GroupInterface parent : parentGroups) {
+                if (parent instanceof JsonGroupImpl) {
+                    ((JsonGroupImpl) parent).childGroups.remove(this);
+                }
             }
         }
+    }
 
-        return false;
+    @Override
+    public boolean inheritsFrom(@NotNull GroupInterface group) {
+        int groupId = group.getId();
+        return groupId >= 0 && ancestors.get(groupId);
     }
 
     // ===================================================================================================
@@ -1848,10 +2819,28 @@ class JsonGroupImpl implements GroupInterface {
             JsonGroupImpl other = (JsonGroupImpl) reloaded;
             this.displayName = other.displayName;
             this.priority = other.priority;
-            this.permissions.clear();
-            this.permissions.addAll(other.permissions);
-            this.parentGroups.clear();
-            this.parentGroups.addAll(other.parentGroups);
+            synchronized (storage.getHierarchyLock()) {
+                // Copy first, the storage may hand back this very instance
+                Set<String> reloadedPermissions = other.permissions.snapshot();
+                List<GroupInterface> reloadedParents = new ArrayList<>(other.parentGroups);
+
+                this.permissions.clear();
+                this.permissions.addAll(reloadedPermissions);
+                for (GroupInterface parent : parentGroups) {
+                    if (parent instanceof JsonGroupImpl) {
+                        ((JsonGroupImpl) parent).childGroups.remove(this);
+                    }
+                }
+                this.parentGroups.clear();
+                for (GroupInterface parent : reloadedParents) {
+                    this.parentGroups.add(parent);
+                    if (parent instanceof JsonGroupImpl && !((JsonGroupImpl) parent).childGroups.contains(this)) {
+                        ((JsonGroupImpl) parent).childGroups.add(this);
+                    }
+                }
+                refreshInheritance();
+            }
+            publishInvalidation("reloaded");
             this.prefix = other.prefix;
             this.suffix = other.suffix;
             this.color = other.color;
@@ -1875,6 +2864,7 @@ class JsonGroupImpl implements GroupInterface {
         copy.isDefault = false;
         copy.createdAt = LocalDateTime.now();
         copy.lastModified = LocalDateTime.now();
+        copy.refreshInheritance();
         return copy;
     }
 
@@ -1882,6 +2872,11 @@ class JsonGroupImpl implements GroupInterface {
     // EXTERNAL MODULE SERIALIZATION
     // ===================================================================================================
 
+    @NotNull
+    EntityVersion getPersistence() {
+        return persistence;
+    }
+
     public JsonStorage.JsonGroupData toData() {
         JsonStorage.JsonGroupData data = new JsonStorage.JsonGroupData();
         data.id = this.id;
@@ -1911,15 +2906,6 @@ class JsonGroupImpl implements GroupInterface {
             group.permissions.addAll(data.permissions);
         }
 
-        if (data.parentGroups != null) {
-            for (String parentName : data.parentGroups) {
-                GroupInterface parent = storage.loadGroup(parentName);
-                if (parent != null) {
-                    group.parentGroups.add(parent);
-                }
-            }
-        }
-
         group.prefix = data.prefix;
         group.suffix = data.suffix;
         if (data.color != null) {
@@ -1933,35 +2919,129 @@ class JsonGroupImpl implements GroupInterface {
         return group;
     }
 
+    /**
+     * Links the parent groups of a loaded group, must run once every group has been created
+     * @param parentNames the parent group names from the data file
+     */
+    void linkParents(@Nullable List<String> parentNames) {
+        if (parentNames == null) {
+            return;
+        }
+
+        for (String parentName : parentNames) {
+            GroupInterface parent = storage.loadGroup(parentName);
+            if (parent != null && parent != this && !parentGroups.contains(parent)) {
+                parentGroups.add(parent);
+                if (parent instanceof JsonGroupImpl) {
+                    ((JsonGroupImpl) parent).childGroups.add(this);
+                }
+            }
+        }
+    }
+
     // ===================================================================================================
-    // PRIVATE HELPER METHODS
+    // INHERITANCE CLOSURE
     // ===================================================================================================
 
-    private void updateLastModified() {
-        this.lastModified = LocalDateTime.now();
+    /**
+     * Recomputes the closure of this group and of every descendant reachable through childGroups
+     */
+    void refreshInheritance() {
+        refreshInheritance(List.of(this));
     }
 
-    private boolean hasWildcardPermission(@NotNull String permission) {
-        Set<String> allPerms = getAllPermissions();
+    /**
+     * Recomputes the closures of the given groups and their descendants, parents before children
+     * @param groups the groups whose own permissions or parents changed
+     */
+    static void refreshInheritance(@NotNull Collection<JsonGroupImpl> groups) {
+        if (groups.isEmpty()) {
+            return;
+        }
 
-        if (allPerms.contains("*")) {
-            return true;
+        synchronized (groups.iterator().next().storage.getHierarchyLock()) {
+            for (JsonGroupImpl group : topologicalOrder(groups)) {
+                group.recomputeClosure();
+            }
         }
+    }
 
-        String[] parts = permission.split("\\.");
-        StringBuilder builder = new StringBuilder();
+    /**
+     * Orders the given groups and their descendants so every group comes after all of its affected parents
+     */
+    @NotNull
+    private static List<JsonGroupImpl> topologicalOrder(@NotNull Collection<JsonGroupImpl> roots) {
+        Set<JsonGroupImpl> visited = new HashSet<>();
+        Deque<JsonGroupImpl> order = new ArrayDeque<>();
 
-        for (int i = 0; i < parts.length; i++) {
-            if (i > 0) builder.append(".");
-            builder.append(parts[i]);
+        for (JsonGroupImpl root : roots) {
+            if (!visited.add(root)) {
+                continue;
+            }
 
-            String wildcard = builder.toString() + ".*";
-            if (allPerms.contains(wildcard)) {
-                return true;
+            // Iterative post-order DFS over childGroups; pushing finished nodes to the front reverses it
+            Deque<Iterator<GroupInterface>> iterators = new ArrayDeque<>();
+            Deque<JsonGroupImpl> path = new ArrayDeque<>();
+            path.push(root);
+            iterators.push(root.childGroups.iterator());
+
+            while (!path.isEmpty()) {
+                Iterator<GroupInterface> children = iterators.peek();
+                if (children.hasNext()) {
+                    GroupInterface child = children.next();
+                    if (child instanceof JsonGroupImpl && visited.add((JsonGroupImpl) child)) {
+                        JsonGroupImpl jsonChild = (JsonGroupImpl) child;
+                        path.push(jsonChild);
+                        iterators.push(jsonChild.childGroups.iterator());
+                    }
+                } else {
+                    iterators.pop();
+                    order.addFirst(path.pop());
+                }
             }
         }
 
-        return false;
+        return new ArrayList<>(order);
+    }
+
+    /**
+     * Rebuilds the closure and ancestor index from own permissions and the already materialized parents
+     */
+    private void recomputeClosure() {
+        PermissionSet.Builder builder = new PermissionSet.Builder().addAll(permissions);
+        BitSet updatedAncestors = new BitSet();
+        for (GroupInterface parent : parentGroups) {
+            builder.addAll(parent.getAllPermissions());
+            if (parent.getId() >= 0) {
+                updatedAncestors.set(parent.getId());
+            }
+            if (parent instanceof JsonGroupImpl) {
+                updatedAncestors.or(((JsonGroupImpl) parent).ancestors);
+            }
+        }
+
+        if (!updatedAncestors.equals(ancestors)) {
+            ancestors = updatedAncestors;
+        }
+
+        PermissionSet updated = builder.build();
+        PermissionSnapshot current = closure;
+        if (!updated.equals(current.getPermissions())) {
+            closure = new PermissionSnapshot(current.getVersion() + 1, updated);
+        }
+    }
+
+    // ===================================================================================================
+    // PRIVATE HELPER METHODS
+    // ===================================================================================================
+
+    private void updateLastModified() {
+        this.lastModified = LocalDateTime.now();
+        storage.markGroupDirty(this);
+    }
+
+    private void publishInvalidation(@NotNull String reason) {
+        PermissionInvalidationBus.publish(PermissionInvalidation.group(name, reason));
     }
 
     @Override
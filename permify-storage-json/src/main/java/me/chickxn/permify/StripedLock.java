@@ -0,0 +1,39 @@
+package me.chickxn.permify;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks selected by key hash.
+ * Operations on the same entity serialize while operations on different entities almost never
+ * share a lock, without keeping a lock object per entity.
+ */
+class StripedLock {
+
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes the number of locks, rounded up to a power of two
+     */
+    StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Lock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding a key
+     */
+    @NotNull
+    Lock get(@NotNull Object key) {
+        int hash = key.hashCode();
+        // Spread the high bits, UUID hashes differ mostly there
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,198 @@
+package me.chickxn.permify;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonJournalTest {
+
+    private final Gson gson = JsonStorage.createGson();
+    private final Logger logger = Logger.getLogger("JsonJournalTest");
+
+    // Current state the journal resolves queued entities against
+    private final Map<UUID, JsonStorage.JsonPlayerData> players = new HashMap<>();
+    private final Map<Integer, JsonStorage.JsonGroupData> groups = new HashMap<>();
+
+    @TempDir
+    Path directory;
+
+    // ===================================================================================================
+    // RECORDING AND REPLAY
+    // ===================================================================================================
+
+    @Test
+    void replaysTheLatestStateOncePerEntity() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        JsonJournal journal = open();
+        players.put(uuid, player(uuid, "first"));
+        journal.recordPlayer(uuid);
+        groups.put(3, group(3, "admin"));
+        journal.recordGroup(3);
+        players.put(uuid, player(uuid, "second"));
+        journal.recordPlayer(uuid);
+        journal.close();
+
+        List<JsonJournal.Record> records = replay();
+
+        assertEquals(2, records.size());
+        assertEquals(JsonJournal.Type.PLAYER, records.get(0).type);
+        assertEquals("second", records.get(0).player.name);
+        assertEquals(JsonJournal.Type.GROUP, records.get(1).type);
+    }
+
+    @Test
+    void groupRecordsCarryOnlyTheChangedGroup() throws IOException {
+        groups.put(1, group(1, "default"));
+        groups.put(2, group(2, "vip"));
+        JsonJournal journal = open();
+        journal.recordGroup(2);
+        journal.close();
+
+        List<JsonJournal.Record> records = replay();
+
+        assertEquals(1, records.size());
+        assertEquals(2, records.get(0).groupId);
+        assertEquals("vip", records.get(0).group.name);
+        assertNull(records.get(0).groups);
+    }
+
+    @Test
+    void deletionReplacesAQueuedChange() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        players.put(uuid, player(uuid, "gone"));
+        groups.put(4, group(4, "old"));
+        JsonJournal journal = open();
+        journal.recordPlayer(uuid);
+        journal.recordGroup(4);
+        journal.recordPlayerDeleted(uuid);
+        journal.recordGroupDeleted(4);
+        journal.close();
+
+        List<JsonJournal.Record> records = replay();
+
+        assertEquals(2, records.size());
+        assertEquals(JsonJournal.Type.PLAYER_DELETED, records.get(0).type);
+        assertEquals(uuid, records.get(0).uuid);
+        assertEquals(JsonJournal.Type.GROUP_DELETED, records.get(1).type);
+        assertEquals(4, records.get(1).groupId);
+    }
+
+    @Test
+    void unloadedPlayersAreNotRecorded() throws IOException {
+        JsonJournal journal = open();
+        journal.recordPlayer(UUID.randomUUID());
+        journal.close();
+
+        assertTrue(replay().isEmpty());
+    }
+
+    // ===================================================================================================
+    // SEGMENTS
+    // ===================================================================================================
+
+    @Test
+    void rotateSealsTheCurrentSegment() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        players.put(uuid, player(uuid, "before"));
+        JsonJournal journal = open();
+        journal.recordPlayer(uuid);
+        awaitCommit(directory.resolve("journal-1.log"));
+
+        List<Path> sealed = journal.rotate();
+        players.put(uuid, player(uuid, "after"));
+        journal.recordPlayer(uuid);
+        journal.close();
+
+        assertEquals(1, sealed.size());
+        List<JsonJournal.Record> records = replay();
+        assertEquals(List.of("before", "after"), records.stream().map(record -> record.player.name).toList());
+
+        journal.deleteSegments(sealed);
+        assertEquals(List.of("after"), replay().stream().map(record -> record.player.name).toList());
+    }
+
+    @Test
+    void replayStopsAtATornRecordAndContinuesWithTheNextSegment() throws IOException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        Files.writeString(directory.resolve("journal-1.log"),
+                line(first) + "{\"type\":\"PLAYER\",\"player\":{\"uu", StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("journal-2.log"), line(second), StandardCharsets.UTF_8);
+
+        List<JsonJournal.Record> records = new ArrayList<>();
+        List<Path> segments = JsonJournal.replay(directory, gson, logger, records::add);
+
+        assertEquals(2, segments.size());
+        assertEquals(List.of(first, second), records.stream().map(record -> record.player.uuid).toList());
+    }
+
+    @Test
+    void openContinuesAfterTheExistingSegments() throws IOException {
+        Files.writeString(directory.resolve("journal-7.log"), "", StandardCharsets.UTF_8);
+        UUID uuid = UUID.randomUUID();
+        players.put(uuid, player(uuid, "next"));
+
+        JsonJournal journal = open();
+        journal.recordPlayer(uuid);
+        journal.close();
+
+        assertTrue(Files.size(directory.resolve("journal-8.log")) > 0);
+        assertEquals(0, Files.size(directory.resolve("journal-7.log")));
+    }
+
+    // ===================================================================================================
+    // HELPERS
+    // ===================================================================================================
+
+    private JsonJournal open() throws IOException {
+        // A long commit window, so every change of a test lands in one commit on close
+        JsonJournal journal = new JsonJournal(directory, gson, logger, 200, players::get, groups::get);
+        journal.open();
+        return journal;
+    }
+
+    private List<JsonJournal.Record> replay() throws IOException {
+        List<JsonJournal.Record> records = new ArrayList<>();
+        JsonJournal.replay(directory, gson, logger, records::add);
+        return records;
+    }
+
+    private static void awaitCommit(Path segment) throws IOException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.size(segment) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(Files.size(segment) > 0, "journal did not commit");
+    }
+
+    private String line(UUID uuid) {
+        JsonJournal.Record record = new JsonJournal.Record();
+        record.type = JsonJournal.Type.PLAYER;
+        record.uuid = uuid;
+        record.player = player(uuid, "replayed");
+        return gson.toJson(record) + "\n";
+    }
+
+    private static JsonStorage.JsonPlayerData player(UUID uuid, String name) {
+        JsonStorage.JsonPlayerData data = new JsonStorage.JsonPlayerData();
+        data.uuid = uuid;
+        data.name = name;
+        return data;
+    }
+
+    private static JsonStorage.JsonGroupData group(int id, String name) {
+        JsonStorage.JsonGroupData data = new JsonStorage.JsonGroupData();
+        data.id = id;
+        data.name = name;
+        return data;
+    }
+}
@@ -0,0 +1,179 @@
+package me.chickxn.permify;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonQueryIndexTest {
+
+    private final Gson gson = JsonStorage.createGson();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    private JsonQueryIndex index;
+
+    @BeforeEach
+    void openIndex() throws IOException {
+        index = new JsonQueryIndex(gson);
+        assertFalse(index.open(directory, 4), "a new directory holds no complete index");
+    }
+
+    // ===================================================================================================
+    // MAINTENANCE
+    // ===================================================================================================
+
+    @Test
+    void indexesGroupsNodesAndNames() {
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, entry("Alice", List.of("VIP"), List.of("essentials.fly")));
+        index.updatePlayer(bob, JsonQueryIndex.Entry.EMPTY, entry("Bob", List.of("vip", "admin"), List.of()));
+
+        assertEquals(Set.of(alice, bob), index.getGroupMembers("Vip"));
+        assertEquals(Set.of(bob), index.getGroupMembers("admin"));
+        assertEquals(Set.of(alice), index.getPlayersWithPermission("essentials.fly"));
+        assertEquals(alice, index.findPlayer("ALICE"));
+        assertNull(index.findPlayer("carol"));
+    }
+
+    @Test
+    void updatesMoveOnlyWhatChanged() {
+        JsonQueryIndex.Entry before = entry("Alice", List.of("vip"), List.of("essentials.fly", "essentials.speed"));
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, before);
+        index.updatePlayer(alice, before, entry("Alice", List.of("admin"), List.of("essentials.speed")));
+
+        assertTrue(index.getGroupMembers("vip").isEmpty());
+        assertEquals(Set.of(alice), index.getGroupMembers("admin"));
+        assertTrue(index.getPlayersWithPermission("essentials.fly").isEmpty());
+        assertEquals(Set.of(alice), index.getPlayersWithPermission("essentials.speed"));
+    }
+
+    @Test
+    void renameMovesTheNameAndKeepsAnotherOwner() {
+        JsonQueryIndex.Entry alicePlayer = entry("Alice", List.of(), List.of());
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, alicePlayer);
+        // Bob takes the name over, Alice renaming away afterwards must not drop Bob's claim
+        JsonQueryIndex.Entry bobPlayer = entry("alice", List.of(), List.of());
+        index.updatePlayer(bob, JsonQueryIndex.Entry.EMPTY, bobPlayer);
+        index.updatePlayer(alice, alicePlayer, entry("Alicia", List.of(), List.of()));
+
+        assertEquals(bob, index.findPlayer("alice"));
+        assertEquals(alice, index.findPlayer("alicia"));
+    }
+
+    @Test
+    void removedPlayersLeaveEveryPosting() {
+        JsonQueryIndex.Entry indexed = entry("Alice", List.of("vip"), List.of("essentials.fly"));
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, indexed);
+        index.updatePlayer(alice, indexed, JsonQueryIndex.Entry.EMPTY);
+
+        assertTrue(index.getGroupMembers("vip").isEmpty());
+        assertTrue(index.getPlayersWithPermission("essentials.fly").isEmpty());
+        assertNull(index.findPlayer("alice"));
+    }
+
+    @Test
+    void removedGroupsLoseTheirMembersAndNodes() {
+        index.indexGroup("Moderator", List.of("kick.use"));
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, entry("Alice", List.of("moderator"), List.of()));
+        assertEquals(Set.of("moderator"), index.getGroupsWithPermission("kick.use"));
+
+        index.removeGroup("MODERATOR");
+
+        assertTrue(index.getGroupMembers("moderator").isEmpty());
+        assertTrue(index.getGroupsWithPermission("kick.use").isEmpty());
+    }
+
+    // ===================================================================================================
+    // PERSISTENCE
+    // ===================================================================================================
+
+    @Test
+    void flushedPagesAreReadBackLazily() throws IOException {
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, entry("Alice", List.of("vip"), List.of("essentials.fly")));
+        index.markComplete();
+        assertFalse(index.hasPendingChanges());
+
+        JsonQueryIndex reopened = new JsonQueryIndex(gson);
+        assertTrue(reopened.open(directory, 4));
+        assertEquals(0, reopened.getCachedPages());
+
+        assertEquals(alice, reopened.findPlayer("alice"));
+        assertEquals(1, reopened.getCachedPages());
+        assertEquals(Set.of(alice), reopened.getGroupMembers("vip"));
+        assertEquals(Set.of(alice), reopened.getPlayersWithPermission("essentials.fly"));
+    }
+
+    @Test
+    void unflushedChangesAreNotOnDisk() throws IOException {
+        index.markComplete();
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, entry("Alice", List.of("vip"), List.of()));
+        assertTrue(index.hasPendingChanges());
+
+        JsonQueryIndex reopened = new JsonQueryIndex(gson);
+        assertTrue(reopened.open(directory, 4));
+        assertTrue(reopened.getGroupMembers("vip").isEmpty());
+    }
+
+    @Test
+    void onlyCleanPagesAreDroppedPastTheLimit() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            index.updatePlayer(UUID.randomUUID(), JsonQueryIndex.Entry.EMPTY,
+                    entry("player" + i, List.of("group" + i), List.of("node." + i)));
+        }
+        int dirty = index.getDirtyPages();
+        assertTrue(dirty > 4);
+        assertEquals(dirty, index.getCachedPages());
+
+        index.flush();
+
+        assertEquals(0, index.getDirtyPages());
+        assertTrue(index.getCachedPages() <= 4);
+        assertFalse(index.getGroupMembers("group7").isEmpty());
+    }
+
+    @Test
+    void openFinishesAnInterruptedFlush() throws IOException {
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, entry("Alice", List.of("vip"), List.of()));
+        index.markComplete();
+
+        // A crash after the redo file was written but before the page it names was replaced
+        String page = "groups/" + String.format(Locale.ROOT, "%02x", Math.floorMod("vip".hashCode(), 64));
+        Map<String, Map<String, Set<UUID>>> redo = Map.of(page, Map.of("vip", Set.of(alice, bob)));
+        Files.writeString(directory.resolve("flush.json"), gson.toJson(redo));
+
+        JsonQueryIndex reopened = new JsonQueryIndex(gson);
+        assertTrue(reopened.open(directory, 4));
+
+        assertFalse(Files.exists(directory.resolve("flush.json")));
+        assertEquals(Set.of(alice, bob), reopened.getGroupMembers("vip"));
+    }
+
+    @Test
+    void resetDropsTheIndex() throws IOException {
+        index.updatePlayer(alice, JsonQueryIndex.Entry.EMPTY, entry("Alice", List.of("vip"), List.of()));
+        index.markComplete();
+
+        index.reset();
+
+        assertTrue(index.getGroupMembers("vip").isEmpty());
+        assertFalse(new JsonQueryIndex(gson).open(directory, 4));
+    }
+
+    // ===================================================================================================
+    // HELPERS
+    // ===================================================================================================
+
+    private static JsonQueryIndex.Entry entry(String name, List<String> groups, List<String> nodes) {
+        return JsonQueryIndex.Entry.of(name, groups, nodes);
+    }
+}